@@ -0,0 +1,78 @@
+package pl.piotrpodbielski.pw.mini.mlog.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.OptimizationAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.enums.Algorithms;
+import pl.piotrpodbielski.pw.mini.mlog.enums.Functions;
+import pl.piotrpodbielski.pw.mini.mlog.loggers.IOptimizationLogger;
+import pl.piotrpodbielski.pw.mini.mlog.various.NotImplementedException;
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+import pl.piotrpodbielski.pw.mini.mlog.various.RunContext;
+import pl.piotrpodbielski.pw.mini.mlog.various.ValuedSample;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of a whole optimize() run of every algorithm with default parameters of Main, without and with logging.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AlgorithmBenchmark {
+    @Param({"MONTE_CARLO", "GRID_SEARCH", "HILL_CLIMBING", "HILL_CLIMBING_AD_SS", "BIT_SWITCH_HILL_CLIMBING", "SIMULATED_ANNEALING",
+            "BIT_SWITCH_HILL_CLIMBING_VNS", "EVOLUTION_STRATEGY", "BIOLOGICAL_EVOLUTION", "PARTICLE_SWARM_OPTIMIZATION",
+            "DIFFERENTIAL_EVOLUTION"})
+    public Algorithms algorithm;
+
+    @Param({"RASTRIGIN", "ROSENBROCK"})
+    public Functions function;
+
+    @Param({"10000"})
+    public int evaluations;
+
+    @Param({"NULL", "CSV"})
+    public String logger;
+
+    private Path directory;
+    private IOptimizationLogger optimizationLogger;
+    private int iteration;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = BenchmarkUtilities.createDirectory();
+        optimizationLogger = BenchmarkUtilities.getLogger(logger, directory, algorithm.getShortName());
+        optimizationLogger.resetLogger();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        optimizationLogger.closeLogger();
+        BenchmarkUtilities.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public ValuedSample optimize() throws NotImplementedException {
+        OptimizationAlgorithm optimizationAlgorithm = BenchmarkUtilities.getOptimizationAlgorithm(algorithm, BenchmarkUtilities.getQualityFunction(function, 2), evaluations);
+        optimizationAlgorithm.setRunContext(new RunContext(iteration, new RandomContext(1).fork(iteration), optimizationLogger));
+        iteration++;
+
+        return optimizationAlgorithm.optimize();
+    }
+}
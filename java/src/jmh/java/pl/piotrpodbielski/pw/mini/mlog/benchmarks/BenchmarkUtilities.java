@@ -0,0 +1,113 @@
+package pl.piotrpodbielski.pw.mini.mlog.benchmarks;
+
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.BiologicalEvolutionAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.BitSwitchHillClimbingAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.BitSwitchHillClimbingVNSAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.DifferentialEvolutionAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.EvolutionStrategyAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.HillClimbingAdSSAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.HillClimbingAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.OptimizationAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.ParticleSwarmOptimizationAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.SimulatedAnnealingAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.simple.GridSearchAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.simple.MonteCarloAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.enums.Algorithms;
+import pl.piotrpodbielski.pw.mini.mlog.enums.Functions;
+import pl.piotrpodbielski.pw.mini.mlog.functions.QualityFunction;
+import pl.piotrpodbielski.pw.mini.mlog.loggers.AggregatingOptimizationLogger;
+import pl.piotrpodbielski.pw.mini.mlog.loggers.BinaryOptimizationLogger;
+import pl.piotrpodbielski.pw.mini.mlog.loggers.FileOptimizationLogger;
+import pl.piotrpodbielski.pw.mini.mlog.loggers.IOptimizationLogger;
+import pl.piotrpodbielski.pw.mini.mlog.loggers.NullOptimizationLogger;
+import pl.piotrpodbielski.pw.mini.mlog.various.Experiments;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Builds benchmarked objects the same way (and with the same default parameters) as Main does.
+ */
+class BenchmarkUtilities {
+    BenchmarkUtilities() {
+        throw new RuntimeException("Cannot initialize instance of class BenchmarkUtilities.");
+    }
+
+    static QualityFunction getQualityFunction(Functions function, int dimension) {
+        return Experiments.getQualityFunction(function, dimension);
+    }
+
+    static OptimizationAlgorithm getOptimizationAlgorithm(Algorithms algorithm, QualityFunction functionToOptimize, int evaluations) {
+        if (algorithm.equals(Algorithms.MONTE_CARLO)) {
+            return new MonteCarloAlgorithm(functionToOptimize, evaluations);
+        }
+        else if (algorithm.equals(Algorithms.GRID_SEARCH)) {
+            return new GridSearchAlgorithm(functionToOptimize, evaluations, (int) Math.ceil(Math.pow(evaluations, 1. / functionToOptimize.getDimension())));
+        }
+        else if (algorithm.equals(Algorithms.HILL_CLIMBING)) {
+            return new HillClimbingAlgorithm(functionToOptimize, 5, evaluations, 0.03, false);
+        }
+        else if (algorithm.equals(Algorithms.HILL_CLIMBING_AD_SS)) {
+            return new HillClimbingAdSSAlgorithm(functionToOptimize, evaluations, 20);
+        }
+        else if (algorithm.equals(Algorithms.BIT_SWITCH_HILL_CLIMBING)) {
+            return new BitSwitchHillClimbingAlgorithm(functionToOptimize, 5, evaluations, 0.03, false, 1);
+        }
+        else if (algorithm.equals(Algorithms.SIMULATED_ANNEALING)) {
+            return new SimulatedAnnealingAlgorithm(functionToOptimize, evaluations);
+        }
+        else if (algorithm.equals(Algorithms.BIT_SWITCH_HILL_CLIMBING_VNS)) {
+            return new BitSwitchHillClimbingVNSAlgorithm(functionToOptimize, evaluations, 1, 10);
+        }
+        else if (algorithm.equals(Algorithms.EVOLUTION_STRATEGY)) {
+            return new EvolutionStrategyAlgorithm(functionToOptimize, evaluations, 100, 0.03, 0.9);
+        }
+        else if (algorithm.equals(Algorithms.BIOLOGICAL_EVOLUTION)) {
+            return new BiologicalEvolutionAlgorithm(functionToOptimize, evaluations, 10, 5, 0.5, 0.03);
+        }
+        else if (algorithm.equals(Algorithms.PARTICLE_SWARM_OPTIMIZATION)) {
+            return new ParticleSwarmOptimizationAlgorithm(functionToOptimize, evaluations, 20, 0.6, 1.7, 1.7);
+        }
+        else if (algorithm.equals(Algorithms.DIFFERENTIAL_EVOLUTION)) {
+            return new DifferentialEvolutionAlgorithm(functionToOptimize, evaluations, 10, 0.5);
+        }
+        throw new RuntimeException();
+    }
+
+    /**
+     * Logger by name of --log-format (or NULL), writing to directory.
+     */
+    static IOptimizationLogger getLogger(String logger, Path directory, String loggedAlgorithmName) {
+        String fileName = directory.resolve("benchmark").toString();
+
+        if (logger.equals("NULL")) {
+            return new NullOptimizationLogger();
+        }
+        else if (logger.equals("CSV")) {
+            return new FileOptimizationLogger(fileName + "-log.csv", loggedAlgorithmName, null);
+        }
+        else if (logger.equals("BINARY")) {
+            return new BinaryOptimizationLogger(fileName + "-log.bin", loggedAlgorithmName, null);
+        }
+        else if (logger.equals("SUMMARY")) {
+            return new AggregatingOptimizationLogger(fileName + "-summary.csv", loggedAlgorithmName, null, 1, new double[]{0.25, 0.5, 0.75});
+        }
+        throw new RuntimeException();
+    }
+
+    static Path createDirectory() throws IOException {
+        return Files.createTempDirectory("mlog-benchmark");
+    }
+
+    static void deleteDirectory(Path directory) throws IOException {
+        File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Files.delete(file.toPath());
+            }
+        }
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,68 @@
+package pl.piotrpodbielski.pw.mini.mlog.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.piotrpodbielski.pw.mini.mlog.enums.Functions;
+import pl.piotrpodbielski.pw.mini.mlog.functions.QualityFunction;
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a single evaluation and of a batch evaluation of quality functions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FunctionBenchmark {
+    private static final int POPULATION = 64;
+
+    @Param({"RASTRIGIN", "ROSENBROCK"})
+    public Functions function;
+
+    @Param({"2", "10", "100", "1000"})
+    public int dimension;
+
+    private QualityFunction qualityFunction;
+    private double[][] population;
+    private double[] values;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        qualityFunction = BenchmarkUtilities.getQualityFunction(function, dimension);
+
+        RandomContext random = new RandomContext(1);
+        population = new double[POPULATION][dimension];
+        for (double[] x : population) {
+            random.fillUniform(x, qualityFunction.getLowerBoundary(), qualityFunction.getUpperBoundary());
+        }
+        values = new double[POPULATION];
+    }
+
+    @Benchmark
+    public double getValue() {
+        next = (next + 1) % POPULATION;
+        return qualityFunction.getValue(population[next]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POPULATION)
+    public double[] getValues() {
+        qualityFunction.getValues(population, values);
+        return values;
+    }
+}
@@ -0,0 +1,83 @@
+package pl.piotrpodbielski.pw.mini.mlog.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.piotrpodbielski.pw.mini.mlog.loggers.IOptimizationLogger;
+import pl.piotrpodbielski.pw.mini.mlog.loggers.SampleBuffer;
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sustained write throughput of loggers (samples per second). Backpressure blocks, so once the buffers are full
+ * it is the throughput of storing samples rather than of handing them over.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LoggerBenchmark {
+    private static final int SAMPLES = 1024;
+
+    @Param({"CSV", "BINARY", "SUMMARY"})
+    public String logger;
+
+    @Param({"2", "10"})
+    public int dimension;
+
+    private Path directory;
+    private IOptimizationLogger optimizationLogger;
+    private SampleBuffer samples;
+    private int step;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = BenchmarkUtilities.createDirectory();
+        samples = new SampleBuffer(SAMPLES, dimension);
+
+        RandomContext random = new RandomContext(1);
+        double[] x = new double[dimension];
+        for (int i = 0; i < SAMPLES; i++) {
+            random.fillUniform(x, -5.12, 5.12);
+            samples.append(0, i, random.nextDouble(), random.nextDouble(), x);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetLogger() {
+        optimizationLogger = BenchmarkUtilities.getLogger(logger, directory, "BENCHMARK");
+        optimizationLogger.resetLogger();
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeLogger() {
+        optimizationLogger.closeLogger();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkUtilities.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void logSamples() {
+        optimizationLogger.logSamples(samples);
+    }
+}
@@ -0,0 +1,56 @@
+package pl.piotrpodbielski.pw.mini.mlog.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+import pl.piotrpodbielski.pw.mini.mlog.various.Utilities;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of drawing random numbers used by the algorithms.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UtilitiesBenchmark {
+    private static final int VALUES = 1000;
+
+    private RandomContext random;
+    private double[] values;
+
+    @Setup
+    public void setUp() {
+        random = new RandomContext(1);
+        values = new double[VALUES];
+    }
+
+    @Benchmark
+    public double generateGaussian() {
+        return Utilities.generateGaussian(random, 0., 1.);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public double[] fillGaussian() {
+        random.fillGaussian(values, 0., 1.);
+        return values;
+    }
+
+    @Benchmark
+    public double getDoubleBetween() {
+        return Utilities.getDoubleBetween(random, -5.12, 5.12);
+    }
+}
@@ -1,151 +1,218 @@
-import pl.piotrpodbielski.pw.mini.mlog.algorithms.BiologicalEvolutionAlgorithm;
-import pl.piotrpodbielski.pw.mini.mlog.algorithms.BitSwitchHillClimbingAlgorithm;
-import pl.piotrpodbielski.pw.mini.mlog.algorithms.BitSwitchHillClimbingVNSAlgorithm;
-import pl.piotrpodbielski.pw.mini.mlog.algorithms.DifferentialEvolutionAlgorithm;
-import pl.piotrpodbielski.pw.mini.mlog.algorithms.EvolutionStrategyAlgorithm;
-import pl.piotrpodbielski.pw.mini.mlog.algorithms.ParticleSwarmOptimizationAlgorithm;
-import pl.piotrpodbielski.pw.mini.mlog.algorithms.simple.GridSearchAlgorithm;
-import pl.piotrpodbielski.pw.mini.mlog.algorithms.HillClimbingAdSSAlgorithm;
-import pl.piotrpodbielski.pw.mini.mlog.algorithms.HillClimbingAlgorithm;
-import pl.piotrpodbielski.pw.mini.mlog.algorithms.simple.MonteCarloAlgorithm;
-import pl.piotrpodbielski.pw.mini.mlog.algorithms.OptimizationAlgorithm;
-import pl.piotrpodbielski.pw.mini.mlog.algorithms.SimulatedAnnealingAlgorithm;
-import pl.piotrpodbielski.pw.mini.mlog.enums.Algorithms;
-import pl.piotrpodbielski.pw.mini.mlog.enums.Functions;
-import pl.piotrpodbielski.pw.mini.mlog.functions.QualityFunction;
-import pl.piotrpodbielski.pw.mini.mlog.functions.RastriginFunction;
-import pl.piotrpodbielski.pw.mini.mlog.functions.RosenbrockFunction;
-import pl.piotrpodbielski.pw.mini.mlog.loggers.FileOptimizationLogger;
-import pl.piotrpodbielski.pw.mini.mlog.loggers.IOptimizationLogger;
-import pl.piotrpodbielski.pw.mini.mlog.various.NotImplementedException;
-import pl.piotrpodbielski.pw.mini.mlog.various.Utilities;
 import net.sourceforge.argparse4j.ArgumentParsers;
-import net.sourceforge.argparse4j.impl.Arguments;
 import net.sourceforge.argparse4j.inf.ArgumentParser;
 import net.sourceforge.argparse4j.inf.ArgumentParserException;
 import net.sourceforge.argparse4j.inf.Namespace;
+import org.json.JSONObject;
+import pl.piotrpodbielski.pw.mini.mlog.enums.Algorithms;
+import pl.piotrpodbielski.pw.mini.mlog.enums.BackpressurePolicies;
+import pl.piotrpodbielski.pw.mini.mlog.enums.BudgetAllocations;
+import pl.piotrpodbielski.pw.mini.mlog.enums.Functions;
+import pl.piotrpodbielski.pw.mini.mlog.enums.LogFormats;
+import pl.piotrpodbielski.pw.mini.mlog.enums.SearchStrategies;
+import pl.piotrpodbielski.pw.mini.mlog.loggers.AggregatingOptimizationLogger;
+import pl.piotrpodbielski.pw.mini.mlog.loggers.BinaryOptimizationLogger;
+import pl.piotrpodbielski.pw.mini.mlog.loggers.FileOptimizationLogger;
+import pl.piotrpodbielski.pw.mini.mlog.loggers.IShardedOptimizationLogger;
+import pl.piotrpodbielski.pw.mini.mlog.tuning.ParameterSpace;
+import pl.piotrpodbielski.pw.mini.mlog.tuning.RandomSearch;
+import pl.piotrpodbielski.pw.mini.mlog.tuning.SearchStrategy;
+import pl.piotrpodbielski.pw.mini.mlog.tuning.TreeParzenEstimator;
+import pl.piotrpodbielski.pw.mini.mlog.tuning.TrialRunner;
+import pl.piotrpodbielski.pw.mini.mlog.tuning.Tuner;
+import pl.piotrpodbielski.pw.mini.mlog.various.Experiments;
+import pl.piotrpodbielski.pw.mini.mlog.various.NotImplementedException;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 
 public class Main {
-    private static void runExperiment(OptimizationAlgorithm algorithm, int iteration) throws NotImplementedException {
-//        System.err.println(String.format("%d iteration", iteration));
-
-        algorithm.setIteration(iteration);
-        algorithm.optimize();
+    public static String parseAlgorithmShortName(String shortName) {
+        return shortName.replaceAll("[ \\+]+", "-");
     }
 
-    private static OptimizationAlgorithm getOptimizationAlgorithm(Namespace ns) {
-        Algorithms algorithm = ns.get("algorithm");
-        Functions qualityFunction = ns.get("quality_function");
-        int evaluations = ns.get("evaluations");
+    /**
+     * Answers trial requests, one JSON object per line, until the input ends.
+     */
+    private static void serveTrials(BufferedReader reader, PrintWriter writer) throws IOException {
+        TrialRunner trialRunner = new TrialRunner();
 
-        QualityFunction functionToOptimize;
-        if (qualityFunction.equals(Functions.RASTRIGIN)) {
-            functionToOptimize = new RastriginFunction(2);
-        }
-        else if (qualityFunction.equals(Functions.ROSENBROCK)) {
-            functionToOptimize = new RosenbrockFunction(2);
-        }
-        else {
-            throw new RuntimeException();
-        }
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
 
-        String fileName = String.format("%s-%s-%s-log.csv", parseAlgorithmShortName(algorithm.getShortName()), qualityFunction, new SimpleDateFormat("MMdd-HHmmss").format(new Date())).toLowerCase();
-        IOptimizationLogger optimizationLogger = new FileOptimizationLogger(fileName, algorithm.getShortName(), ns.getAttrs());
-        optimizationLogger.resetLogger();
+            JSONObject response;
+            Object id = null;
+            try {
+                JSONObject request = new JSONObject(line);
+                id = request.opt("id");
+                response = trialRunner.runTrial(request);
+            } catch (ArgumentParserException | NotImplementedException | RuntimeException e) {
+                response = new JSONObject().put("status", "fail").put("error", e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            }
 
-        System.out.println(fileName);
-        if (algorithm.equals(Algorithms.MONTE_CARLO)) {
-            return new MonteCarloAlgorithm(functionToOptimize, optimizationLogger, evaluations);
-        }
-        else if (algorithm.equals(Algorithms.GRID_SEARCH)) {
-            return new GridSearchAlgorithm(functionToOptimize, optimizationLogger, (int) Math.ceil(Math.pow(evaluations, 1. / functionToOptimize.getDimension())));
-        }
-        else if (algorithm.equals(Algorithms.HILL_CLIMBING)) {
-            return new HillClimbingAlgorithm(functionToOptimize, optimizationLogger, ns.getInt("failures_to_reset"), evaluations, ns.getDouble("step"), ns.getBoolean("reset_resets_failures_counter"));
-        }
-        else if (algorithm.equals(Algorithms.HILL_CLIMBING_AD_SS)) {
-            return new HillClimbingAdSSAlgorithm(functionToOptimize, optimizationLogger, evaluations, ns.getInt("number_of_particles"));
-        }
-        else if (algorithm.equals(Algorithms.BIT_SWITCH_HILL_CLIMBING)) {
-            return new BitSwitchHillClimbingAlgorithm(functionToOptimize, optimizationLogger, ns.getInt("failures_to_reset"), evaluations, ns.getDouble("step"), ns.getBoolean("reset_resets_failures_counter"), ns.getInt("no_of_bits_for_grid_mapping_per_dim"));
-        }
-        else if (algorithm.equals(Algorithms.SIMULATED_ANNEALING)) {
-            return new SimulatedAnnealingAlgorithm(functionToOptimize, optimizationLogger, evaluations);
-        }
-        else if (algorithm.equals(Algorithms.BIT_SWITCH_HILL_CLIMBING_VNS)) {
-            return new BitSwitchHillClimbingVNSAlgorithm(functionToOptimize, optimizationLogger, evaluations, ns.getInt("no_of_bits_for_grid_mapping_per_dim"), ns.getInt("neighbour_looks"));
-        }
-        else if (algorithm.equals(Algorithms.EVOLUTION_STRATEGY)) {
-            return new EvolutionStrategyAlgorithm(functionToOptimize, optimizationLogger, evaluations, ns.getInt("improvements_loop_iteration"), ns.getDouble("step"), ns.getDouble("step_mutation_coefficient"));
-        }
-        else if (algorithm.equals(Algorithms.BIOLOGICAL_EVOLUTION)) {
-            return new BiologicalEvolutionAlgorithm(functionToOptimize, optimizationLogger, evaluations, ns.getInt("population"), ns.getInt("crossover_population"), ns.getDouble("mutation_probability"), ns.getDouble("step"));
-        }
-        else if (algorithm.equals(Algorithms.PARTICLE_SWARM_OPTIMIZATION)) {
-            return new ParticleSwarmOptimizationAlgorithm(functionToOptimize, optimizationLogger, evaluations, ns.getInt("number_of_particles"), ns.getDouble("omega"), ns.getDouble("c_1"), ns.getDouble("c_2"));
-        }
-        else if (algorithm.equals(Algorithms.DIFFERENTIAL_EVOLUTION)) {
-            return new DifferentialEvolutionAlgorithm(functionToOptimize, optimizationLogger, evaluations, ns.getInt("population"), ns.getDouble("f"));
+            if (id != null) {
+                response.put("id", id);
+            }
+            writer.println(response.toString());
+            writer.flush();
         }
-        throw new RuntimeException();
     }
 
-    public static String parseAlgorithmShortName(String shortName) {
-        return shortName.replaceAll("[ \\+]+", "-");
-    }
+    /**
+     * Keeps JVM (and its warmed-up code) running between hyperparameter tuning trials. Trials are read from stdin,
+     * or from every connection to the given local port, which are served concurrently.
+     */
+    private static void serve(String[] args) throws IOException {
+        ArgumentParser parser = ArgumentParsers.newFor("MLOG serve").build();
+        parser.addArgument("--port").type(Integer.class);
+
+        Namespace ns = null;
+        try {
+            ns = parser.parseArgs(args);
+        } catch (ArgumentParserException e) {
+            parser.handleError(e);
+            System.exit(1);
+        }
 
-    public static void main(String[] args) throws NotImplementedException {
-        Utilities.setRandomGenerator(1);
+        Integer port = ns.getInt("port");
+        if (port == null) {
+            serveTrials(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)), new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+            return;
+        }
+
+        try (ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.out.println(String.format("Listening on %s:%d", serverSocket.getInetAddress().getHostAddress(), serverSocket.getLocalPort()));
+
+            while (true) {
+                Socket socket = serverSocket.accept();
+                Thread connection = new Thread(() -> {
+                    try (Socket s = socket;
+                         BufferedReader reader = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+                         PrintWriter writer = new PrintWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+                        serveTrials(reader, writer);
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                });
+                connection.setDaemon(true);
+                connection.start();
+            }
+        }
+    }
 
-        ArgumentParser parser = ArgumentParsers.newFor("MLOG").build();
+    /**
+     * Searches hyperparameters of an algorithm (spaces of hypertune.py) with trials run concurrently in this JVM,
+     * printing every trial and finally the best configuration as JSON lines.
+     */
+    private static void tune(String[] args) {
+        ArgumentParser parser = ArgumentParsers.newFor("MLOG tune").build();
         parser.addArgument("algorithm").type(Algorithms.class);
         parser.addArgument("quality-function").type(Functions.class);
         parser.addArgument("evaluations").type(Integer.class);
-        parser.addArgument("--times").type(Integer.class).setDefault(1);
-
-        parser.addArgument("--number-of-particles").type(Integer.class).setDefault(20); // HC + AdSS, PSO
-
-        parser.addArgument("--step").type(Double.class).setDefault(0.03); // HC, BSHC, ES, BE
-
-        parser.addArgument("--failures-to-reset").type(Integer.class).setDefault(5); // HC, BSHC
-        parser.addArgument("--reset-resets-failures-counter").action(Arguments.storeTrue()); // HC, BSHC
+        parser.addArgument("--strategy").type(SearchStrategies.class).setDefault(SearchStrategies.TPE);
+        parser.addArgument("--budget").type(BudgetAllocations.class).setDefault(BudgetAllocations.SUCCESSIVE_HALVING);
+        parser.addArgument("--trials").type(Integer.class); // number of configurations, default of hypertune.py if not given
+        parser.addArgument("--times").type(Integer.class).setDefault(500);
+        parser.addArgument("--threads").type(Integer.class).setDefault(Runtime.getRuntime().availableProcessors());
+        parser.addArgument("--eta").type(Integer.class).setDefault(3); // SUCCESSIVE_HALVING, HYPERBAND
+        parser.addArgument("--min-evaluations").type(Integer.class); // SUCCESSIVE_HALVING, HYPERBAND; evaluations / eta^2 if not given
+        parser.addArgument("--seed").type(Long.class).setDefault(1L);
 
-        parser.addArgument("--no-of-bits-for-grid-mapping-per-dim").type(Integer.class).setDefault(1); // BSHC, BSHC + VNS
-
-        parser.addArgument("--neighbour-looks").type(Integer.class).setDefault(10); // BSHC + VNS
+        Namespace ns = null;
+        try {
+            ns = parser.parseArgs(args);
+        } catch (ArgumentParserException e) {
+            parser.handleError(e);
+            System.exit(1);
+        }
 
-        parser.addArgument("--improvements-loop-iteration").type(Integer.class).setDefault(100); // ES
-        parser.addArgument("--step-mutation-coefficient").type(Double.class).setDefault(0.9); // ES
+        Algorithms algorithm = ns.get("algorithm");
+        Functions qualityFunction = ns.get("quality_function");
+        int evaluations = ns.getInt("evaluations");
+        int eta = ns.getInt("eta");
 
-        parser.addArgument("--population").type(Integer.class).setDefault(10); // BE, DE
-        parser.addArgument("--crossover-population").type(Integer.class).setDefault(5); // BE
-        parser.addArgument("--mutation-probability").type(Double.class).setDefault(0.5); // BE
+        ParameterSpace space = ParameterSpace.get(algorithm, qualityFunction, evaluations);
+        SearchStrategy strategy;
+        if (ns.get("strategy").equals(SearchStrategies.RANDOM)) {
+            strategy = new RandomSearch(space);
+        }
+        else {
+            strategy = new TreeParzenEstimator(space);
+        }
 
-        parser.addArgument("--omega").type(Double.class).setDefault(0.6); // PSO
-        parser.addArgument("--c-1").type(Double.class).setDefault(1.7); // PSO
-        parser.addArgument("--c-2").type(Double.class).setDefault(1.7); // PSO
+        List<String> baseArguments = Arrays.asList(algorithm.name(), qualityFunction.name(), Integer.toString(evaluations),
+                "--times", ns.getInt("times").toString(), "--seed=" + ns.getLong("seed"));
+        Integer trials = ns.getInt("trials");
+        Integer minEvaluations = ns.getInt("min_evaluations");
 
-        parser.addArgument("--f").type(Double.class).setDefault(0.5); // DE
+        Tuner tuner = new Tuner(space, strategy, baseArguments, evaluations, ns.get("budget"), eta,
+                minEvaluations != null ? minEvaluations : Math.max(1, evaluations / (eta * eta)),
+                trials != null ? trials : space.getTrials(), ns.getInt("threads"), ns.getLong("seed"), System.out);
+        System.out.println(tuner.run().toString());
+    }
 
+    public static void main(String[] args) throws NotImplementedException, IOException {
+        if (args.length > 0 && args[0].equals("serve")) {
+            serve(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("tune")) {
+            tune(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
 
+        ArgumentParser parser = Experiments.createArgumentParser();
 
         Namespace ns = null;
         try {
             ns = parser.parseArgs(args);
+            Experiments.checkArguments(parser, ns);
         } catch (ArgumentParserException e) {
             parser.handleError(e);
             System.exit(1);
         }
 
-        OptimizationAlgorithm algorithm = getOptimizationAlgorithm(ns);
+        Algorithms algorithm = ns.get("algorithm");
+        Functions qualityFunction = ns.get("quality_function");
+        long seed = ns.getLong("seed");
+        LogFormats logFormat = ns.get("log_format");
+        BackpressurePolicies backpressurePolicy = ns.get("log_backpressure");
 
-        if (ns.getAttrs().containsKey("times")) {
-            for (int i = 0; i < ns.getInt("times"); i++) {
-                runExperiment(algorithm, i);
-            }
+        String fileName = String.format("%s-%s-%s-%s", parseAlgorithmShortName(algorithm.getShortName()), qualityFunction, new SimpleDateFormat("MMdd-HHmmss").format(new Date()), logFormat.getSuffix()).toLowerCase();
+        IShardedOptimizationLogger optimizationLogger;
+        if (logFormat.equals(LogFormats.SUMMARY)) {
+            List<Double> quantiles = ns.getList("summary_quantiles");
+            optimizationLogger = new AggregatingOptimizationLogger(fileName, algorithm.getShortName(), ns.getAttrs(), ns.getInt("summary_stride"), quantiles.stream().mapToDouble(Double::doubleValue).toArray());
+        }
+        else if (logFormat.equals(LogFormats.BINARY)) {
+            optimizationLogger = new BinaryOptimizationLogger(fileName, algorithm.getShortName(), ns.getAttrs(), backpressurePolicy);
+        }
+        else {
+            optimizationLogger = new FileOptimizationLogger(fileName, algorithm.getShortName(), ns.getAttrs(), backpressurePolicy);
+        }
+        optimizationLogger.resetLogger();
+
+        System.out.println(fileName);
+
+        int[] evaluationsToTarget = Experiments.runExperiments(ns, optimizationLogger, seed);
+
+        optimizationLogger.closeLogger();
+
+        if (ns.getDouble("target") != null) {
+            System.out.println(new JSONObject().put("target", Experiments.getTarget(ns)).put("evaluations_to_target", evaluationsToTarget));
         }
     }
 }
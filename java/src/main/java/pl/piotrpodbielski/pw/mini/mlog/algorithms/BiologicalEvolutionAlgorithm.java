@@ -1,17 +1,14 @@
 package pl.piotrpodbielski.pw.mini.mlog.algorithms;
 
 import pl.piotrpodbielski.pw.mini.mlog.functions.QualityFunction;
-import pl.piotrpodbielski.pw.mini.mlog.loggers.IOptimizationLogger;
 import pl.piotrpodbielski.pw.mini.mlog.various.Utilities;
 import pl.piotrpodbielski.pw.mini.mlog.various.ValuedSample;
-import pl.piotrpodbielski.pw.mini.mlog.various.ValuedSampleComparator;
-
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
 
+/**
+ * Every generation population is joined by its crossover offspring, their mutants and mutants of population, and the
+ * best of them survive.
+ */
 public class BiologicalEvolutionAlgorithm extends OptimizationAlgorithm {
-    private final IOptimizationLogger logger;
     private final int maxSamplesCount;
     private final int population;
     private final int crossoverPopulation;
@@ -19,11 +16,26 @@ public class BiologicalEvolutionAlgorithm extends OptimizationAlgorithm {
     private final double mutationStep;
     private final QualityFunction qualityFunction;
 
-    public BiologicalEvolutionAlgorithm(QualityFunction qualityFunction, IOptimizationLogger logger,
+    // Arenas of the current run
+    private double[][] populationRows;
+    private double[] populationValues;
+    private double[][] nextPopulationRows;
+    private double[] nextPopulationValues;
+    private double[][] offspring;
+    private double[] offspringValues;
+    private double[] candidateValues; // population, then offspring
+    private int[] order;
+    // Parent of every mutant in offspring (row of offspring or of population) with its mutated dimensions
+    private int[] mutantParents;
+    private int[][] mutatedDims;
+    private int[] mutatedDimsCounts;
+    private double[][] mutantParentRows;
+    private double[] mutantParentValues;
+
+    public BiologicalEvolutionAlgorithm(QualityFunction qualityFunction,
                                         int maxSamplesCount, int population, int crossoverPopulation, double mutationProbability, double mutationStep) {
         super(qualityFunction);
         this.qualityFunction = qualityFunction;
-        this.logger = logger;
         this.maxSamplesCount = maxSamplesCount;
         this.population = population;
         this.crossoverPopulation = crossoverPopulation;
@@ -31,125 +43,223 @@ public class BiologicalEvolutionAlgorithm extends OptimizationAlgorithm {
         this.mutationStep = mutationStep;
     }
 
-    private double[][] crossover(double[][] population) {
-        double[][] crossoverPopulation = new double[this.crossoverPopulation][];
-
+    /**
+     * Writes children of random pairs of population into the first crossoverPopulation rows of offspring.
+     */
+    private void crossover() {
         for (int i = 0; i < this.crossoverPopulation; ++i) {
-            int firstRandInt = Utilities.getRandomGenerator().nextInt(this.population);
-            int secondRandInt = Utilities.getRandomGenerator().nextInt(this.population);
-
-            crossoverPopulation[i] = new double[this.qualityFunction.getDimension()];
+            int firstRandInt = getRandom().nextInt(this.population);
+            int secondRandInt = getRandom().nextInt(this.population);
 
             for (int j = 0; j < this.qualityFunction.getDimension(); ++j) {
-                crossoverPopulation[i][j] = (population[firstRandInt][j] + population[secondRandInt][j]) / 2;
+                offspring[i][j] = (populationRows[firstRandInt][j] + populationRows[secondRandInt][j]) / 2;
             }
         }
-
-        return crossoverPopulation;
     }
 
-    private double[][] mutate(double[][] population) {
-        List<double[]> mutatePopulationList = new ArrayList<>();
-
-        for (double[] doubles : population) {
-            double[] x_prime = new double[this.qualityFunction.getDimension()];
+    /**
+     * Writes mutants of rows [0, count) of parents into offspring from row next on, skipping parents which did not
+     * mutate; returns the row after the last mutant.
+     */
+    private int mutate(double[][] parents, int count, int next) {
+        for (int i = 0; i < count; ++i) {
+            double[] x_prime = offspring[next];
 
             boolean mutated = false;
+            int mutatedCount = 0;
             for (int j = 0; j < this.qualityFunction.getDimension(); ++j) {
 
-                if (Utilities.getRandomGenerator().nextDouble() < this.mutationProbability) {
-                    x_prime[j] = Utilities.generateGaussian(doubles[j], this.mutationStep);
+                if (getRandom().nextDouble() < this.mutationProbability) {
+                    x_prime[j] = Utilities.generateGaussian(getRandom(), parents[i][j], this.mutationStep);
                     mutated = true;
+                    if (mutatedDims != null) {
+                        mutatedDims[next][mutatedCount++] = j;
+                    }
                 } else {
-                    x_prime[j] = doubles[j];
+                    x_prime[j] = parents[i][j];
                 }
             }
 
             if (mutated) {
-                mutatePopulationList.add(x_prime);
+                if (mutatedDims != null) {
+                    mutantParents[next] = i;
+                    mutatedDimsCounts[next] = mutatedCount;
+                }
+                next++;
             }
         }
 
-        return mutatePopulationList.toArray(new double[mutatePopulationList.size()][]);
+        return next;
     }
 
-    private static double[][] concatArrays(final double[][]... arrays) {
-        return Arrays.stream(arrays)
-                .flatMap(Arrays::stream)
-                .toArray(double[][]::new);
+    /**
+     * Evaluates offspring [0, offspringCount), whose mutants of crossover children end at row mutantsOfPopulation;
+     * mutants are evaluated from values of their parents.
+     */
+    private void evaluateIncrementally(GenerationEvaluator evaluator, int mutantsOfPopulation, int offspringCount) {
+        evaluator.evaluate(offspring, 0, Math.min(this.crossoverPopulation, offspringCount), offspringValues);
+        if (offspringCount <= this.crossoverPopulation) {
+            return;
+        }
+
+        for (int i = this.crossoverPopulation; i < offspringCount; ++i) {
+            int parent = mutantParents[i];
+            if (i < mutantsOfPopulation) {
+                mutantParentRows[i] = offspring[parent];
+                mutantParentValues[i] = offspringValues[parent];
+            }
+            else {
+                mutantParentRows[i] = populationRows[parent];
+                mutantParentValues[i] = populationValues[parent];
+            }
+        }
+
+        evaluator.evaluate(offspring, this.crossoverPopulation, offspringCount, offspringValues,
+                mutantParentRows, mutantParentValues, mutatedDims, mutatedDimsCounts);
     }
 
-    @Override
-    public ValuedSample optimize() {
-        int samplesCount = 1;
+    /**
+     * Moves the best population of population and offspring [0, offspringCount) into the next population buffer,
+     * which becomes the current one.
+     */
+    private void select(int offspringCount) {
+        int candidates = this.population + offspringCount;
+        for (int i = 0; i < this.population; ++i) {
+            order[i] = i;
+            candidateValues[i] = populationValues[i];
+        }
+        for (int i = 0; i < offspringCount; ++i) {
+            order[this.population + i] = this.population + i;
+            candidateValues[this.population + i] = offspringValues[i];
+        }
 
-        // Initialise population of n particles
-        ValuedSample bestSample = null;
+        if (candidates > this.population) {
+            select(0, candidates - 1, this.population - 1);
+        }
 
-        ArrayList<ValuedSample> populationSample = new ArrayList<>(this.population);
-        double[][] population = new double[this.population][];
         for (int i = 0; i < this.population; ++i) {
-            population[i] = this.randomSampleWithinFunctionBounds();
+            int idx = order[i];
+            double[] x = idx < this.population ? populationRows[idx] : offspring[idx - this.population];
+            System.arraycopy(x, 0, nextPopulationRows[i], 0, x.length);
+            nextPopulationValues[i] = candidateValues[idx];
+        }
 
-            ValuedSample sample = new ValuedSample(population[i], functionToOptimize, getIteration(), i);
-            logger.logSample(sample);
-            samplesCount++;
+        double[][] rows = populationRows;
+        populationRows = nextPopulationRows;
+        nextPopulationRows = rows;
 
-            populationSample.add(i, sample);
+        double[] values = populationValues;
+        populationValues = nextPopulationValues;
+        nextPopulationValues = values;
+    }
 
-            if (bestSample == null || sample.getValue() < bestSample.getValue()) {
-                bestSample = sample;
+    /**
+     * Reorders order[from..to] so that order[k] has the candidate which would be there if they were sorted by value,
+     * with candidates not worse before it and not better after it (quickselect).
+     */
+    private void select(int from, int to, int k) {
+        while (from < to) {
+            double pivot = candidateValues[order[(from + to) >>> 1]];
+            int i = from;
+            int j = to;
+
+            while (i <= j) {
+                while (candidateValues[order[i]] < pivot) {
+                    i++;
+                }
+                while (candidateValues[order[j]] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = order[i];
+                    order[i++] = order[j];
+                    order[j--] = swap;
+                }
+            }
+
+            if (k <= j) {
+                to = j;
+            }
+            else if (k >= i) {
+                from = i;
+            }
+            else {
+                return;
             }
         }
+    }
 
-        // Comparator
-        ValuedSampleComparator valuedSampleComparator = new ValuedSampleComparator();
+    @Override
+    public ValuedSample optimize() {
+        try (GenerationEvaluator evaluator = createGenerationEvaluator()) {
+            return optimize(evaluator);
+        }
+    }
+
+    private ValuedSample optimize(GenerationEvaluator evaluator) {
+        int samplesCount = 1;
+        int dimension = this.qualityFunction.getDimension();
+        int offspringCapacity = 2 * this.crossoverPopulation + this.population;
+
+        // Initialise population of n particles
+        populationRows = randomSamplesWithinFunctionBounds(this.population);
+        populationValues = new double[this.population];
+        nextPopulationRows = new double[this.population][dimension];
+        nextPopulationValues = new double[this.population];
+        offspring = new double[offspringCapacity][dimension];
+        offspringValues = new double[offspringCapacity];
+        candidateValues = new double[this.population + offspringCapacity];
+        order = new int[this.population + offspringCapacity];
+        if (this.qualityFunction.isIncremental()) {
+            mutantParents = new int[offspringCapacity];
+            mutatedDims = new int[offspringCapacity][dimension];
+            mutatedDimsCounts = new int[offspringCapacity];
+            mutantParentRows = new double[offspringCapacity][];
+            mutantParentValues = new double[offspringCapacity];
+        }
+        else {
+            mutantParents = null;
+            mutatedDims = null;
+            mutatedDimsCounts = null;
+            mutantParentRows = null;
+            mutantParentValues = null;
+        }
+
+        evaluator.evaluate(populationRows, 0, this.population, populationValues);
+        samplesCount += this.population;
 
         // Until all iterations done
         boolean runFlag = true;
         while (runFlag) {
-            double[][] crossoverPopulation = crossover(population);
-            double[][] crossoverPopulationMutated = mutate(crossoverPopulation);
-            double[][] populationMutated = mutate(population);
-
-            double[][] evaluatePopulation = concatArrays(population, crossoverPopulation, crossoverPopulationMutated, populationMutated);
-            ArrayList<ValuedSample> evaluationSample = new ArrayList<>(evaluatePopulation.length);
-
-            for (int i = 0; i < this.population; ++i) {
-                evaluationSample.add(i, populationSample.get(i));
+            // Crossover offspring, their mutants and mutants of population
+            crossover();
+            int mutantsOfPopulation = mutate(offspring, this.crossoverPopulation, this.crossoverPopulation);
+            int offspringCount = mutate(populationRows, this.population, mutantsOfPopulation);
+
+            // Evaluate only as many offspring as the remaining budget allows
+            if (offspringCount >= maxSamplesCount - samplesCount) {
+                offspringCount = Math.max(maxSamplesCount - samplesCount, 0);
+                runFlag = false;
             }
 
-            for (int i = this.population; i < evaluatePopulation.length; ++i) {
-                ValuedSample sample = new ValuedSample(evaluatePopulation[i], functionToOptimize, getIteration(), i);
-                logger.logSample(sample);
-                samplesCount++;
-
-                evaluationSample.add(i, sample);
-
-                if (bestSample == null || sample.getValue() < bestSample.getValue()) {
-                    bestSample = sample;
-                }
-
-                // Stop if maxSampleCount almost exceeded
-                if (samplesCount == maxSamplesCount) {
-                    runFlag = false;
-                    break;
-                }
+            if (mutatedDims != null) {
+                evaluateIncrementally(evaluator, mutantsOfPopulation, offspringCount);
             }
+            else {
+                evaluator.evaluate(offspring, 0, offspringCount, offspringValues);
+            }
+            samplesCount += offspringCount;
 
-            evaluationSample.sort(valuedSampleComparator);
+            select(offspringCount);
 
-            for (int i = 0; i < this.population; ++i) {
-                ValuedSample valuedSample = evaluationSample.get(i);
-                int idx = valuedSample.getIdx();
-                population[i] = evaluatePopulation[idx];
-                valuedSample.setIdx(i);
-                populationSample.set(i, valuedSample);
+            if (runFlag) {
+                checkDiversity(populationRows, this.population);
+            }
+            if (runFlag && isMigrating()) {
+                migrate(populationRows, populationValues);
             }
         }
 
-        logger.flushSamples();
-
-        return bestSample;
+        return finishRun();
     }
 }
@@ -1,8 +1,8 @@
 package pl.piotrpodbielski.pw.mini.mlog.algorithms;
 
+import pl.piotrpodbielski.pw.mini.mlog.functions.CachingQualityFunction;
 import pl.piotrpodbielski.pw.mini.mlog.functions.QualityFunction;
-import pl.piotrpodbielski.pw.mini.mlog.loggers.IOptimizationLogger;
-import pl.piotrpodbielski.pw.mini.mlog.various.Utilities;
+import pl.piotrpodbielski.pw.mini.mlog.various.RunContext;
 import pl.piotrpodbielski.pw.mini.mlog.various.ValuedSample;
 
 import java.util.Arrays;
@@ -10,10 +10,23 @@ import java.util.Arrays;
 public class BitSwitchHillClimbingAlgorithm extends HillClimbingAlgorithm {
 
     public static final int MAX_BITS_NUMBER = 64;
+    // Cache hits in a row after which they take steps anyway, so a run which has seen all genomes around still ends
+    private static final int MAX_FREE_HITS = 10000;
     protected final int noOfBitsForGridMappingPerDim;
 
-    public BitSwitchHillClimbingAlgorithm(QualityFunction functionToOptimize, IOptimizationLogger logger, int failuresToReset, int samplesCount, double step, boolean resetResetsFailuresCounter, int noOfBitsForGridMappingPerDim) {
-        super(functionToOptimize, logger, failuresToReset, samplesCount, step, resetResetsFailuresCounter);
+    private int cacheCapacity = 0;
+    private boolean cacheHitsTakeSteps = false;
+    private CachingQualityFunction cache;
+    private int freeHits;
+    private boolean lastSampleTookStep;
+
+    // Dimensions changed by the last flipRandomBitInSample (ascending) and which of them are in the list
+    private int[] changedDims;
+    private boolean[] isChangedDim;
+    private int changedDimsCount;
+
+    public BitSwitchHillClimbingAlgorithm(QualityFunction functionToOptimize, int failuresToReset, int samplesCount, double step, boolean resetResetsFailuresCounter, int noOfBitsForGridMappingPerDim) {
+        super(functionToOptimize, failuresToReset, samplesCount, step, resetResetsFailuresCounter);
 
         if (noOfBitsForGridMappingPerDim > MAX_BITS_NUMBER) {
             throw new Error("Number of bits for grid mapping can not be more than 64 (long type limitation).");
@@ -22,18 +35,88 @@ public class BitSwitchHillClimbingAlgorithm extends HillClimbingAlgorithm {
     }
 
     private long flipBit(long number, int idx) {
-        return number ^ (1 << idx);
+        return number ^ (1L << idx);
+    }
+
+    /**
+     * Remembers values of the last cacheCapacity genomes of a run (no cache if 0). Unless hitsTakeSteps, a genome
+     * found in the cache is neither recorded nor counted as a sample.
+     */
+    public void setEvaluationCache(int cacheCapacity, boolean hitsTakeSteps) {
+        this.cacheCapacity = cacheCapacity;
+        this.cacheHitsTakeSteps = hitsTakeSteps;
+    }
+
+    /**
+     * Cache of the last run, with its hit counters; null without cache.
+     */
+    public CachingQualityFunction getEvaluationCache() {
+        return cache;
+    }
+
+    protected void resetEvaluationCache() {
+        cache = cacheCapacity > 0 ? new CachingQualityFunction(functionToOptimize, noOfBitsForGridMappingPerDim, cacheCapacity) : null;
+        freeHits = 0;
+    }
+
+    /**
+     * Value of genome x, which is x_mapped in the search space, from the cache if it has it.
+     */
+    protected double evaluate(long[] x, double[] x_mapped) {
+        lastSampleTookStep = true;
+        if (cache == null) {
+            return evaluate(x_mapped);
+        }
+
+        RunContext runContext = getRunContext();
+        double value = cache.getValue(x, x_mapped);
+        if (!cache.isLastHit()) {
+            freeHits = 0;
+            runContext.record(x_mapped, value);
+        }
+        else if (cacheHitsTakeSteps || ++freeHits > MAX_FREE_HITS) {
+            runContext.record(x_mapped, value);
+        }
+        else {
+            lastSampleTookStep = false;
+        }
+
+        return value;
+    }
+
+    /**
+     * Value of x_prime (mapped to x_prime_mapped) made by flipRandomBitInSample from x, which is mapped to x_mapped and
+     * has value xValue (NaN if not known), computed incrementally from the changed dimensions when possible.
+     */
+    protected double evaluateFlipped(long[] x_prime, double[] x_prime_mapped, double[] x_mapped, double xValue) {
+        if (cache != null || Double.isNaN(xValue)) {
+            return evaluate(x_prime, x_prime_mapped);
+        }
+
+        lastSampleTookStep = true;
+        Arrays.sort(changedDims, 0, changedDimsCount);
+        return evaluate(x_mapped, xValue, x_prime_mapped, changedDims, changedDimsCount);
+    }
+
+    /**
+     * Whether the last sample evaluated with evaluate(x, x_mapped) took a step of the budget of the run.
+     */
+    protected boolean tookStep() {
+        return lastSampleTookStep;
     }
 
     public long[] randomSample() {
         long[] x = new long[this.functionToOptimize.getDimension()];
-;
+        randomSample(x);
+
+        return x;
+    }
+
+    protected void randomSample(long[] x) {
         for (int i = 0; i < this.functionToOptimize.getDimension(); ++i) {
-            x[i] = Utilities.getRandomGenerator().nextLong();
+            x[i] = getRandom().nextLong();
             x[i] = x[i] & (1L << noOfBitsForGridMappingPerDim - 1);
         }
-
-        return x;
     }
 
     /**
@@ -63,14 +146,18 @@ public class BitSwitchHillClimbingAlgorithm extends HillClimbingAlgorithm {
 
     public double[] mapSampleToFunctionBounds(long[] x) {
         double[] x_mapped = new double[functionToOptimize.getDimension()];
+        mapSampleToFunctionBounds(x, x_mapped);
+
+        return x_mapped;
+    }
+
+    protected void mapSampleToFunctionBounds(long[] x, double[] x_mapped) {
         for (int dim = 0; dim < functionToOptimize.getDimension(); dim++) {
             long dim_value = x[dim];
 
             x_mapped[dim] = this.mapLongToDoubleWithinBounds(dim_value, functionToOptimize.getLowerBoundary()[dim],
                     functionToOptimize.getUpperBoundary()[dim]);
         }
-
-        return x_mapped;
     }
 
     public long[] flipBitInSample(long[] x, int dimToChange, int bitToChange) {
@@ -81,17 +168,46 @@ public class BitSwitchHillClimbingAlgorithm extends HillClimbingAlgorithm {
         return x_prime;
     }
 
-    protected long[] flipRandomBitInSample(long[] x) {
-        long[] x_prime = Arrays.copyOf(x, x.length);
+    /**
+     * Copies x into x_prime and flips `step` random bits of the copy.
+     */
+    protected void flipRandomBitInSample(long[] x, long[] x_prime) {
+        System.arraycopy(x, 0, x_prime, 0, x.length);
+
+        if (changedDims == null) {
+            changedDims = new int[x.length];
+            isChangedDim = new boolean[x.length];
+        }
+        for (int i = 0; i < changedDimsCount; ++i) {
+            isChangedDim[changedDims[i]] = false;
+        }
+        changedDimsCount = 0;
 
         for (int i = 0; i < (int)this.getStep(); ++i) {
-            int dimToChange = (Utilities.getRandomGenerator().nextInt() & Integer.MAX_VALUE) % this.functionToOptimize.getDimension();
-            int bitToChange = (Utilities.getRandomGenerator().nextInt() & Integer.MAX_VALUE) % noOfBitsForGridMappingPerDim;
+            int dimToChange = (getRandom().nextInt() & Integer.MAX_VALUE) % this.functionToOptimize.getDimension();
+            int bitToChange = (getRandom().nextInt() & Integer.MAX_VALUE) % noOfBitsForGridMappingPerDim;
 
-            x_prime = this.flipBitInSample(x_prime, dimToChange, bitToChange);
+            x_prime[dimToChange] = flipBit(x_prime[dimToChange], bitToChange);
+
+            if (!isChangedDim[dimToChange]) {
+                isChangedDim[dimToChange] = true;
+                changedDims[changedDimsCount++] = dimToChange;
+            }
         }
+    }
 
-        return x_prime;
+    /**
+     * Maps x_prime made by flipRandomBitInSample from x, which is mapped to x_mapped, to x_prime_mapped: only the
+     * changed dimensions are mapped again.
+     */
+    protected void mapFlippedSample(long[] x_prime, double[] x_mapped, double[] x_prime_mapped) {
+        System.arraycopy(x_mapped, 0, x_prime_mapped, 0, x_mapped.length);
+
+        for (int i = 0; i < changedDimsCount; ++i) {
+            int dim = changedDims[i];
+            x_prime_mapped[dim] = this.mapLongToDoubleWithinBounds(x_prime[dim], functionToOptimize.getLowerBoundary()[dim],
+                    functionToOptimize.getUpperBoundary()[dim]);
+        }
     }
 
     @Override
@@ -101,28 +217,40 @@ public class BitSwitchHillClimbingAlgorithm extends HillClimbingAlgorithm {
         int lastSuccess = 0;
         // Get random starting point
         long[] x = this.randomSample();
+        long[] x_prime = new long[x.length];
         double[] x_mapped = this.mapSampleToFunctionBounds(x);
+        double[] x_prime_mapped = new double[x.length];
 
         // Evaluate starting point and log
-        ValuedSample bestSample = new ValuedSample(x_mapped, functionToOptimize, getIteration());
-        logger.logSample(bestSample);
+        resetEvaluationCache();
+        double bestValue = evaluate(x, x_mapped);
+        // Value of x, not known after reset
+        double xValue = bestValue;
 
         // Until all iterations done
         while (samplesCount < maxSamplesCount) {
             // Flip `step` bits
-            long[] x_prime = this.flipRandomBitInSample(x);
-            double[] x_prime_mapped = this.mapSampleToFunctionBounds(x_prime);
+            this.flipRandomBitInSample(x, x_prime);
+            this.mapFlippedSample(x_prime, x_mapped, x_prime_mapped);
 
             // Evaluate new sample
-            ValuedSample testSample = new ValuedSample(x_prime_mapped, functionToOptimize, getIteration());
-            samplesCount++;
-            logger.logSample(testSample);
+            double testValue = evaluateFlipped(x_prime, x_prime_mapped, x_mapped, xValue);
+            if (tookStep()) {
+                samplesCount++;
+            }
 
             // Test new sample if it is better or not
-            if (testSample.getValue() < bestSample.getValue()) {
+            if (testValue < bestValue) {
                 lastSuccess = 0;
-                bestSample = testSample;
+                bestValue = testValue;
+                long[] swap = x;
                 x = x_prime;
+                x_prime = swap;
+
+                double[] swapMapped = x_mapped;
+                x_mapped = x_prime_mapped;
+                x_prime_mapped = swapMapped;
+                xValue = testValue;
             } else {
                 lastSuccess++;
             }
@@ -133,11 +261,12 @@ public class BitSwitchHillClimbingAlgorithm extends HillClimbingAlgorithm {
                 }
 
                 // Generete new random point
-                x = this.randomSample();
+                this.randomSample(x);
+                this.mapSampleToFunctionBounds(x, x_mapped);
+                xValue = Double.NaN;
             }
         }
-        logger.flushSamples();
 
-        return bestSample;
+        return finishRun();
     }
 }
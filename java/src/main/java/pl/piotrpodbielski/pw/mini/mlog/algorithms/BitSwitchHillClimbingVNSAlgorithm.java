@@ -1,7 +1,6 @@
 package pl.piotrpodbielski.pw.mini.mlog.algorithms;
 
 import pl.piotrpodbielski.pw.mini.mlog.functions.QualityFunction;
-import pl.piotrpodbielski.pw.mini.mlog.loggers.IOptimizationLogger;
 import pl.piotrpodbielski.pw.mini.mlog.various.ValuedSample;
 
 import java.util.Arrays;
@@ -10,8 +9,8 @@ public class BitSwitchHillClimbingVNSAlgorithm extends BitSwitchHillClimbingAlgo
 
     private int neighbourLooks;
 
-    public BitSwitchHillClimbingVNSAlgorithm(QualityFunction functionToOptimize, IOptimizationLogger logger, int samplesCount, int noOfBitsForGridMappingPerDim, int neighbourLooks) {
-        super(functionToOptimize, logger, 0, samplesCount, 1, false, noOfBitsForGridMappingPerDim);
+    public BitSwitchHillClimbingVNSAlgorithm(QualityFunction functionToOptimize, int samplesCount, int noOfBitsForGridMappingPerDim, int neighbourLooks) {
+        super(functionToOptimize, 0, samplesCount, 1, false, noOfBitsForGridMappingPerDim);
 
         this.neighbourLooks = neighbourLooks;
     }
@@ -23,13 +22,15 @@ public class BitSwitchHillClimbingVNSAlgorithm extends BitSwitchHillClimbingAlgo
         // Get random starting point
         long[] x = this.randomSample();
         long[] x_best = Arrays.copyOf(x, x.length);
-        double[] x_best_mapped = this.mapSampleToFunctionBounds(x);
+        long[] x_prime = new long[x.length];
+        double[] x_mapped = this.mapSampleToFunctionBounds(x);
+        double[] x_best_mapped = Arrays.copyOf(x_mapped, x_mapped.length);
+        double[] x_prime_mapped = new double[x.length];
 
         // Evaluate starting point and log
-        ValuedSample bestSample = new ValuedSample(x_best_mapped, functionToOptimize, getIteration());
-        logger.logSample(bestSample);
-
-        x = Arrays.copyOf(x_best, x_best.length);
+        resetEvaluationCache();
+        double bestValue = evaluate(x, x_mapped);
+        double xValue = bestValue;
 
         // Until all iterations done
         boolean stopCriterion = false;
@@ -40,18 +41,20 @@ public class BitSwitchHillClimbingVNSAlgorithm extends BitSwitchHillClimbingAlgo
                 improvement = false;
 
                 // Flip `neighbourLookRange` bits
-                long[] x_prime = this.flipRandomBitInSample(x);
-                double[] x_prime_mapped = this.mapSampleToFunctionBounds(x_prime);
+                this.flipRandomBitInSample(x, x_prime);
+                this.mapFlippedSample(x_prime, x_mapped, x_prime_mapped);
 
-                // Evaluate new sample
-                ValuedSample testSample = new ValuedSample(x_prime_mapped, functionToOptimize, getIteration());
-                samplesCount++;
-                logger.logSample(testSample);
+                // Evaluate new sample (neighbour of x, whose value is the best one)
+                double testValue = evaluateFlipped(x_prime, x_prime_mapped, x_mapped, xValue);
+                if (tookStep()) {
+                    samplesCount++;
+                }
 
                 // Test new sample if it is better or not
-                if (testSample.getValue() < bestSample.getValue()) {
-                    bestSample = testSample;
-                    x_best = x_prime;
+                if (testValue < bestValue) {
+                    bestValue = testValue;
+                    System.arraycopy(x_prime, 0, x_best, 0, x_best.length);
+                    System.arraycopy(x_prime_mapped, 0, x_best_mapped, 0, x_best_mapped.length);
                     improvement = true;
                 }
 
@@ -61,7 +64,9 @@ public class BitSwitchHillClimbingVNSAlgorithm extends BitSwitchHillClimbingAlgo
                 }
             }
 
-            x = Arrays.copyOf(x_best, x.length);
+            System.arraycopy(x_best, 0, x, 0, x.length);
+            System.arraycopy(x_best_mapped, 0, x_mapped, 0, x_mapped.length);
+            xValue = bestValue;
 
             if (!improvement) {
                 this.setStep(this.getStep() + 1);
@@ -70,8 +75,7 @@ public class BitSwitchHillClimbingVNSAlgorithm extends BitSwitchHillClimbingAlgo
                 this.setStep(1);
             }
         }
-        logger.flushSamples();
 
-        return bestSample;
+        return finishRun();
     }
 }
@@ -1,25 +1,17 @@
 package pl.piotrpodbielski.pw.mini.mlog.algorithms;
 
 import pl.piotrpodbielski.pw.mini.mlog.functions.QualityFunction;
-import pl.piotrpodbielski.pw.mini.mlog.loggers.IOptimizationLogger;
 import pl.piotrpodbielski.pw.mini.mlog.various.NotImplementedException;
-import pl.piotrpodbielski.pw.mini.mlog.various.Utilities;
 import pl.piotrpodbielski.pw.mini.mlog.various.ValuedSample;
 
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
-
 public class DifferentialEvolutionAlgorithm extends OptimizationAlgorithm {
-    private final IOptimizationLogger logger;
     private final int maxSamplesCount;
     private final int population;
     private final double f;
 
-    public DifferentialEvolutionAlgorithm(QualityFunction qualityFunction, IOptimizationLogger logger,
+    public DifferentialEvolutionAlgorithm(QualityFunction qualityFunction,
                                           int maxSamplesCount, int population, double f) {
         super(qualityFunction);
-        this.logger = logger;
         this.maxSamplesCount = maxSamplesCount;
         this.population = population;
         this.f = f;
@@ -29,82 +21,150 @@ public class DifferentialEvolutionAlgorithm extends OptimizationAlgorithm {
         }
     }
 
-    private double[] crossover(double[] x, double[] v) {
-        double[] u = new double[x.length];
-
+    /**
+     * Writes crossover of x and v into u, storing (ascending) coordinates taken from v in changed; returns their count.
+     */
+    private int crossover(double[] x, double[] v, double[] u, int[] changed) {
         double probability = 1. / x.length;
+        int count = 0;
 
         for (int i = 0; i < x.length; ++i) {
-            if (Utilities.getRandomGenerator().nextDouble() < probability) {
+            if (getRandom().nextDouble() < probability) {
                 u[i] = v[i];
+                changed[count++] = i;
             }
             else {
                 u[i] = x[i];
             }
         }
 
-        return u;
+        return count;
+    }
+
+    /**
+     * Mutant of x_i: best + f * (x_r1 - x_r2) with random r1 =/= r2 =/= i.
+     */
+    private void mutate(double[][] population, int i, double[] best, double[] v) {
+        int firstParticleIdx, secondParticleIdx;
+
+        do {
+            firstParticleIdx = getRandom().nextInt(this.population);
+        } while (firstParticleIdx == i);
+
+        do {
+            secondParticleIdx = getRandom().nextInt(this.population);
+        } while (secondParticleIdx == i || firstParticleIdx == secondParticleIdx);
+
+        for (int j = 0; j < this.functionToOptimize.getDimension(); ++j) {
+            v[j] = best[j] + this.f * (population[firstParticleIdx][j] - population[secondParticleIdx][j]);
+        }
+    }
+
+    /**
+     * Exchanges individuals with other islands, returning best value (and updating best) after immigrants arrive.
+     */
+    private double immigrate(double[][] population, double[] populationValues, double[] best, double bestValue) {
+        migrate(population, populationValues);
+
+        for (int i = 0; i < this.population; ++i) {
+            if (populationValues[i] < bestValue) {
+                bestValue = populationValues[i];
+                System.arraycopy(population[i], 0, best, 0, best.length);
+            }
+        }
+
+        return bestValue;
     }
 
     @Override
     public ValuedSample optimize() throws NotImplementedException {
+        try (GenerationEvaluator evaluator = createGenerationEvaluator()) {
+            return optimize(evaluator);
+        }
+    }
+
+    private ValuedSample optimize(GenerationEvaluator evaluator) {
         int samplesCount = 0;
 
         // Initialise population of n particles
-        double[] best = {0, 0};
-        ValuedSample bestSample = null;
+        double[] best = new double[this.functionToOptimize.getDimension()];
+        double bestValue = Double.MAX_VALUE;
 
-        Map<Integer, ValuedSample> populationSample = new HashMap<>(this.population);
-        double[][] population = new double[this.population][];
+        double[][] population = randomSamplesWithinFunctionBounds(this.population);
 
-        for (int i = 0; i < this.population; ++i) {
-            population[i] = this.randomSampleWithinFunctionBounds();
+        double[] populationValues = new double[this.population];
+        evaluator.evaluate(population, 0, this.population, populationValues);
 
-            ValuedSample sample = new ValuedSample(population[i], functionToOptimize, getIteration());
-            logger.logSample(sample);
+        for (int i = 0; i < this.population; ++i) {
             samplesCount++;
 
-            populationSample.put(i, sample);
+            if (populationValues[i] < bestValue) {
+                System.arraycopy(population[i], 0, best, 0, best.length);
+                bestValue = populationValues[i];
+            }
+        }
+
+        double[] v = new double[best.length];
+        double[] u = new double[best.length];
+        int[] changed = new int[best.length];
+
+        if (isSynchronousGenerations()) {
+            double[][] trials = new double[this.population][best.length];
+            double[] trialValues = new double[this.population];
+
+            while (samplesCount < maxSamplesCount) {
+                // Trials of the whole generation are created from the previous one
+                int count = Math.min(this.population, maxSamplesCount - samplesCount);
+                for (int i = 0; i < count; ++i) {
+                    mutate(population, i, best, v);
+                    crossover(population[i], v, trials[i], changed);
+                }
 
-            if (bestSample == null || sample.getValue() < bestSample.getValue()) {
-                best = population[i];
-                bestSample = sample;
+                evaluator.evaluate(trials, 0, count, trialValues);
+                samplesCount += count;
+
+                for (int i = 0; i < count; ++i) {
+                    if (trialValues[i] < populationValues[i]) {
+                        System.arraycopy(trials[i], 0, population[i], 0, best.length);
+                        populationValues[i] = trialValues[i];
+                    }
+
+                    if (trialValues[i] < bestValue) {
+                        bestValue = trialValues[i];
+                        System.arraycopy(trials[i], 0, best, 0, best.length);
+                    }
+                }
+
+                if (samplesCount < maxSamplesCount) {
+                    checkDiversity(population, this.population);
+                }
+                if (samplesCount < maxSamplesCount && isMigrating()) {
+                    bestValue = immigrate(population, populationValues, best, bestValue);
+                }
             }
+
+            return finishRun();
         }
 
         // Until all iterations done
         boolean runFlag = true;
         while (runFlag) {
             for (int i = 0; i < this.population; ++i) {
-                int firstParticleIdx, secondParticleIdx;
-
-                do {
-                    firstParticleIdx = Utilities.getRandomGenerator().nextInt(this.population);
-                } while (firstParticleIdx == i);
-
-                do {
-                    secondParticleIdx = Utilities.getRandomGenerator().nextInt(this.population);
-                } while (secondParticleIdx == i || firstParticleIdx == secondParticleIdx);
-
-                double[] v = Arrays.copyOf(best, best.length);
-                for (int j = 0; j < this.functionToOptimize.getDimension(); ++j) {
-                    v[j] += this.f * (population[firstParticleIdx][j] - population[secondParticleIdx][j]);
-                }
-                double[] u = crossover(population[i], v);
+                mutate(population, i, best, v);
+                int changedCount = crossover(population[i], v, u, changed);
 
-                // Evaluate
-                ValuedSample sample = new ValuedSample(u, functionToOptimize, getIteration());
-                logger.logSample(sample);
+                // Evaluate (u differs from x_i only where taken from v)
+                double value = evaluate(population[i], populationValues[i], u, changed, changedCount);
                 samplesCount++;
 
-                if (sample.getValue() < populationSample.get(i).getValue()) {
-                    population[i] = u;
-                    populationSample.put(i, sample);
+                if (value < populationValues[i]) {
+                    System.arraycopy(u, 0, population[i], 0, u.length);
+                    populationValues[i] = value;
                 }
 
-                if (sample.getValue() < bestSample.getValue()) {
-                    bestSample = sample;
-                    best = u;
+                if (value < bestValue) {
+                    bestValue = value;
+                    System.arraycopy(u, 0, best, 0, u.length);
                 }
 
                 // Stop if maxSampleCount almost exceeded
@@ -113,10 +173,15 @@ public class DifferentialEvolutionAlgorithm extends OptimizationAlgorithm {
                     break;
                 }
             }
-        }
 
-        logger.flushSamples();
+            if (runFlag) {
+                checkDiversity(population, this.population);
+            }
+            if (runFlag && isMigrating()) {
+                bestValue = immigrate(population, populationValues, best, bestValue);
+            }
+        }
 
-        return bestSample;
+        return finishRun();
     }
 }
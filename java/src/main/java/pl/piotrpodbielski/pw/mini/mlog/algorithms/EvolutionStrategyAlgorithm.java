@@ -1,25 +1,19 @@
 package pl.piotrpodbielski.pw.mini.mlog.algorithms;
 
 import pl.piotrpodbielski.pw.mini.mlog.functions.QualityFunction;
-import pl.piotrpodbielski.pw.mini.mlog.loggers.IOptimizationLogger;
-import pl.piotrpodbielski.pw.mini.mlog.various.Utilities;
 import pl.piotrpodbielski.pw.mini.mlog.various.ValuedSample;
 
-import java.util.Arrays;
-
 public class EvolutionStrategyAlgorithm extends OptimizationAlgorithm {
 
-    final IOptimizationLogger logger;
     private final int maxSamplesCount;
     private final int improvementsLoopIterations;
     private final double stepMutationCoefficient;
     private double step;
 
-    public EvolutionStrategyAlgorithm(QualityFunction functionToOptimize, IOptimizationLogger logger,
+    public EvolutionStrategyAlgorithm(QualityFunction functionToOptimize,
                                       int maxSamplesCount, int improvementsLoopIterations, double step, double stepMutationCoefficient) {
         super(functionToOptimize);
 
-        this.logger = logger;
         this.maxSamplesCount = maxSamplesCount;
         this.improvementsLoopIterations = improvementsLoopIterations;
         this.step = step;
@@ -37,13 +31,10 @@ public class EvolutionStrategyAlgorithm extends OptimizationAlgorithm {
         int samplesCount = 1;
         // Get random starting point
         double[] x = this.randomSampleWithinFunctionBounds();
+        double[] x_prime = new double[functionToOptimize.getDimension()];
 
         // Evaluate starting point and log
-        ValuedSample bestSample = new ValuedSample(x, functionToOptimize, getIteration());
-        logger.logSample(bestSample);
-
-        int[] drawRetries = new int[functionToOptimize.getDimension()];
-        Arrays.fill(drawRetries, 15);
+        double bestValue = evaluate(x);
 
         // Until all iterations done
         boolean runFlag = true;
@@ -51,39 +42,18 @@ public class EvolutionStrategyAlgorithm extends OptimizationAlgorithm {
         {
             int improvements = 0;
             for (int i = 0; i < this.improvementsLoopIterations; ++i) {
-                // Set from where we start to looking
-                double[] x_prime = Arrays.copyOf(x, functionToOptimize.getDimension());
-
-                // Update every dim of point with std dev `step`
-                for (int dim = 0; dim < functionToOptimize.getDimension(); ++dim) {
-                    int cnt = 0;
-                    do {
-                        if (cnt == drawRetries[dim]) {
-                            if (drawRetries[dim] > 1) {
-                                drawRetries[dim] -= 1;
-                            }
-                            x_prime[dim] = x[dim];
-                            break;
-                        }
-                        x_prime[dim] = Utilities.generateGaussian(x[dim], step);
-                        cnt += 1;
-                    } while (x_prime[dim] < functionToOptimize.getLowerBoundary()[dim] || x_prime[dim] > functionToOptimize.getUpperBoundary()[dim]);
-
-                    if (cnt < drawRetries[dim]) {
-                        drawRetries[dim] = 15;
-                    }
-                }
+                // Update every dim of point with std dev `step`, keeping it within bounds
+                getMutation().mutate(getRandom(), x, step, functionToOptimize.getLowerBoundary(), functionToOptimize.getUpperBoundary(), x_prime);
 
                 // Evaluate new sample
-                ValuedSample testSample = new ValuedSample(x_prime, functionToOptimize, getIteration());
+                double testValue = evaluate(x_prime);
                 samplesCount++;
-                logger.logSample(testSample);
 
                 // Test new sample if it is better or not
-                if (testSample.getValue() < bestSample.getValue())
+                if (testValue < bestValue)
                 {
-                    bestSample = testSample;
-                    x = Arrays.copyOf(x_prime, x_prime.length);
+                    bestValue = testValue;
+                    System.arraycopy(x_prime, 0, x, 0, x.length);
                     improvements += 1;
                 }
 
@@ -102,8 +72,7 @@ public class EvolutionStrategyAlgorithm extends OptimizationAlgorithm {
             }
 
         }
-        logger.flushSamples();
 
-        return bestSample;
+        return finishRun();
     }
 }
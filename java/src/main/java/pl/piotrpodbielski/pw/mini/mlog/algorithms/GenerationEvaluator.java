@@ -0,0 +1,129 @@
+package pl.piotrpodbielski.pw.mini.mlog.algorithms;
+
+import pl.piotrpodbielski.pw.mini.mlog.functions.QualityFunction;
+import pl.piotrpodbielski.pw.mini.mlog.various.RunContext;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evaluates a whole generation at once, on a fork-join pool when there are more threads; the run is the same for any
+ * number of threads.
+ */
+class GenerationEvaluator implements AutoCloseable {
+    private final QualityFunction function;
+    private final RunContext runContext;
+    private final int threads;
+    private final ForkJoinPool pool;
+
+    private boolean[] incremental = new boolean[0];
+
+    GenerationEvaluator(QualityFunction function, RunContext runContext, int threads) {
+        this.function = function;
+        this.runContext = runContext;
+        this.threads = threads;
+        this.pool = threads > 1 ? new ForkJoinPool(threads) : null;
+    }
+
+    /**
+     * Evaluates rows [from, to) of candidates, storing value of candidates[i] in values[i].
+     */
+    void evaluate(double[][] candidates, int from, int to, double[] values) {
+        if (pool == null || to - from < 2) {
+            runContext.evaluate(function, candidates, from, to, values);
+            return;
+        }
+
+        // Few rows per task, as generations are small and evaluating a candidate may take long
+        pool.invoke(new Rows(candidates, from, to, values, null, null, null, null, getGrain(from, to)));
+        runContext.record(candidates, from, to, values);
+    }
+
+    /**
+     * Evaluates rows [from, to) as above, candidates[i] differing from previous[i], of value previousValues[i], only at
+     * coordinates changed[i][0..counts[i]). Which of them are updated incrementally is decided in order of rows by the
+     * run context, so values do not depend on the number of threads either.
+     */
+    void evaluate(double[][] candidates, int from, int to, double[] values,
+                  double[][] previous, double[] previousValues, int[][] changed, int[] counts) {
+        if (incremental.length < to) {
+            incremental = new boolean[to];
+        }
+        for (int i = from; i < to; ++i) {
+            incremental[i] = runContext.decideIncremental(function, candidates[i].length, counts[i]);
+        }
+
+        Rows rows = new Rows(candidates, from, to, values, previous, previousValues, changed, counts, getGrain(from, to));
+        if (pool == null || to - from < 2) {
+            rows.evaluate();
+        }
+        else {
+            pool.invoke(rows);
+        }
+        runContext.record(candidates, from, to, values);
+    }
+
+    private int getGrain(int from, int to) {
+        return Math.max(1, (to - from) / (4 * threads));
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    private class Rows extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[][] candidates;
+        private final int from;
+        private final int to;
+        private final double[] values;
+        // Null unless rows are evaluated incrementally where the run context decided so
+        private final double[][] previous;
+        private final double[] previousValues;
+        private final int[][] changed;
+        private final int[] counts;
+        private final int grain;
+
+        Rows(double[][] candidates, int from, int to, double[] values,
+             double[][] previous, double[] previousValues, int[][] changed, int[] counts, int grain) {
+            this.candidates = candidates;
+            this.from = from;
+            this.to = to;
+            this.values = values;
+            this.previous = previous;
+            this.previousValues = previousValues;
+            this.changed = changed;
+            this.counts = counts;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                evaluate();
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new Rows(candidates, from, middle, values, previous, previousValues, changed, counts, grain),
+                    new Rows(candidates, middle, to, values, previous, previousValues, changed, counts, grain));
+        }
+
+        void evaluate() {
+            if (previous == null) {
+                function.getValues(candidates, from, to, values);
+                return;
+            }
+
+            for (int i = from; i < to; ++i) {
+                values[i] = incremental[i]
+                        ? function.getValue(previous[i], previousValues[i], candidates[i], changed[i], counts[i])
+                        : function.getValue(candidates[i]);
+            }
+        }
+    }
+}
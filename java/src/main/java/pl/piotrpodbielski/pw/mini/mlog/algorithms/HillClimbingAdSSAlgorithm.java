@@ -1,53 +1,89 @@
 package pl.piotrpodbielski.pw.mini.mlog.algorithms;
 
 import pl.piotrpodbielski.pw.mini.mlog.functions.QualityFunction;
-import pl.piotrpodbielski.pw.mini.mlog.loggers.IOptimizationLogger;
-import pl.piotrpodbielski.pw.mini.mlog.various.Utilities;
 import pl.piotrpodbielski.pw.mini.mlog.various.ValuedSample;
 
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
-
 public class HillClimbingAdSSAlgorithm extends OptimizationAlgorithm {
 
-    private final IOptimizationLogger logger;
     private final int maxSamplesCount;
     private int numberOfParticles;
 
-    public HillClimbingAdSSAlgorithm(QualityFunction functionToOptimize, IOptimizationLogger logger,
+    public HillClimbingAdSSAlgorithm(QualityFunction functionToOptimize,
                                      int maxSamplesCount, int numberOfParticles) {
         super(functionToOptimize);
-        this.logger = logger;
         this.maxSamplesCount = maxSamplesCount;
         this.numberOfParticles = numberOfParticles;
     }
 
 
+    /**
+     * Moves every component of p by a random step not longer than its distance to s, into p_prime.
+     */
+    private void drawCandidate(double[] p, double[] s, double[] p_prime) {
+        // For every component p_i in particle p, draw from [p_i - |p_i - s_i|, p_i + |p_i - s_i|] kept within bounds
+        for (int dim = 0; dim < p.length; ++dim) {
+            double s_max = Math.abs(p[dim] - s[dim]);
+            p_prime[dim] = getMutation().mutateUniformly(getRandom(), p[dim], s_max, functionToOptimize.getLowerBoundary()[dim], functionToOptimize.getUpperBoundary()[dim]);
+        }
+    }
+
+    private int selectOtherParticle(int i) {
+        int selectedParticleIdx;
+        do {
+            // Select randomly one particle
+            selectedParticleIdx = getRandom().nextInt(this.numberOfParticles);
+        } while (selectedParticleIdx == i);
+
+        return selectedParticleIdx;
+    }
+
     @Override
     public ValuedSample optimize() {
+        try (GenerationEvaluator evaluator = createGenerationEvaluator()) {
+            return optimize(evaluator);
+        }
+    }
+
+    private ValuedSample optimize(GenerationEvaluator evaluator) {
         int samplesCount = 0;
 
         // Initialise population of n particles
-        ValuedSample bestSample = null;
+        double[][] population = randomSamplesWithinFunctionBounds(numberOfParticles);
+
+        double[] populationValues = new double[numberOfParticles];
+        evaluator.evaluate(population, 0, numberOfParticles, populationValues);
+        samplesCount += numberOfParticles;
+
+        double[] p_prime = new double[functionToOptimize.getDimension()];
+
+        if (isSynchronousGenerations()) {
+            double[][] candidates = new double[numberOfParticles][functionToOptimize.getDimension()];
+            double[] candidateValues = new double[numberOfParticles];
+
+            while (samplesCount < maxSamplesCount) {
+                // Candidates of all particles are drawn from the population of the previous generation
+                int count = Math.min(numberOfParticles, maxSamplesCount - samplesCount);
+                for (int i = 0; i < count; ++i) {
+                    drawCandidate(population[i], population[selectOtherParticle(i)], candidates[i]);
+                }
+
+                evaluator.evaluate(candidates, 0, count, candidateValues);
+                samplesCount += count;
 
-        Map<Integer, ValuedSample> populationSample = new HashMap<>(numberOfParticles);
-        double[][] population = new double[numberOfParticles][];
-        for (int i = 0; i < numberOfParticles; ++i) {
-            population[i] = this.randomSampleWithinFunctionBounds();
-            ValuedSample particleSample = new ValuedSample(population[i], functionToOptimize, getIteration());
-            populationSample.put(i, particleSample);
+                for (int i = 0; i < count; ++i) {
+                    if (candidateValues[i] < populationValues[i]) {
+                        System.arraycopy(candidates[i], 0, population[i], 0, candidates[i].length);
+                        populationValues[i] = candidateValues[i];
+                    }
+                }
 
-            if (bestSample == null || particleSample.getValue() < bestSample.getValue()) {
-                bestSample = particleSample;
+                if (samplesCount < maxSamplesCount) {
+                    checkDiversity(population, numberOfParticles);
+                }
             }
-            logger.logSample(particleSample);
-            samplesCount++;
-        }
 
-        // In bound checker counter
-        int[] drawRetries = new int[functionToOptimize.getDimension()];
-        Arrays.fill(drawRetries, 15);
+            return finishRun();
+        }
 
         // While stopping criterion not met
         boolean stopCriterion = false;
@@ -56,58 +92,21 @@ public class HillClimbingAdSSAlgorithm extends OptimizationAlgorithm {
             // For every particle p in population
             for (int i = 0; i < this.numberOfParticles; ++i) {
                 double[] p = population[i];
-                ValuedSample particleSample = populationSample.get(i);
 
                 // Select random particle s =/= p
-                int selectedParticleIdx;
-                do {
-                    // Select randomly one particle
-                    selectedParticleIdx = Utilities.getRandomGenerator().nextInt(this.numberOfParticles);
-                } while (selectedParticleIdx == i);
-
-                double[] s = population[selectedParticleIdx];
-
-                // For every component p_i in particle p
-                double[] p_prime = Arrays.copyOf(p, p.length);
-                for (int dim = 0; dim < p.length; ++dim) {
-                    int cnt = 0;
-                    do {
-                        if (cnt == drawRetries[dim]) {
-                            if (drawRetries[dim] > 1) {
-                                drawRetries[dim] -= 1;
-                            }
-                            p_prime[dim] = p[dim];
-                            break;
-                        }
-
-
-                        double s_max = Math.abs(p[dim] - s[dim]);
-                        double r = Utilities.getDoubleBetween(-s_max, s_max);
-                        p_prime[dim] = p[dim] + r;
-
-                        cnt += 1;
-                    } while (p_prime[dim] < functionToOptimize.getLowerBoundary()[dim] || p_prime[dim] > functionToOptimize.getUpperBoundary()[dim]);
-
-                    if (cnt < drawRetries[dim]) {
-                        drawRetries[dim] = 15;
-                    }
-                }
+                double[] s = population[selectOtherParticle(i)];
+
+                drawCandidate(p, s, p_prime);
 
                 // Evaluate new sample
-                ValuedSample testSample = new ValuedSample(p_prime, functionToOptimize, getIteration());
+                double testValue = evaluate(p_prime);
                 samplesCount++;
-                logger.logSample(testSample);
 
                 // Test if f(p_prime) > f(p)
-                if (testSample.getValue() < particleSample.getValue())
+                if (testValue < populationValues[i])
                 {
-                    population[i] = Arrays.copyOf(p_prime, p_prime.length);
-                    populationSample.put(i, testSample);
-                }
-
-                // Check if result better
-                if (testSample.getValue() < bestSample.getValue()) {
-                    bestSample = testSample;
+                    System.arraycopy(p_prime, 0, population[i], 0, p_prime.length);
+                    populationValues[i] = testValue;
                 }
 
                 if (samplesCount == maxSamplesCount) {
@@ -115,9 +114,12 @@ public class HillClimbingAdSSAlgorithm extends OptimizationAlgorithm {
                     break;
                 }
             }
+
+            if (!stopCriterion) {
+                checkDiversity(population, numberOfParticles);
+            }
         }
-        logger.flushSamples();
 
-        return bestSample;
+        return finishRun();
     }
 }
@@ -1,25 +1,21 @@
 package pl.piotrpodbielski.pw.mini.mlog.algorithms;
 
+import pl.piotrpodbielski.pw.mini.mlog.enums.Samplers;
 import pl.piotrpodbielski.pw.mini.mlog.functions.QualityFunction;
-import pl.piotrpodbielski.pw.mini.mlog.loggers.IOptimizationLogger;
-import pl.piotrpodbielski.pw.mini.mlog.various.Utilities;
+import pl.piotrpodbielski.pw.mini.mlog.samplers.ISampler;
 import pl.piotrpodbielski.pw.mini.mlog.various.ValuedSample;
 
-import java.util.Arrays;
-
 public class HillClimbingAlgorithm extends OptimizationAlgorithm {
 
-    final IOptimizationLogger logger;
     final int failuresToReset;
     final int maxSamplesCount;
     double step;
     final boolean resetResetsFailuresCounter;
 
-    public HillClimbingAlgorithm(QualityFunction functionToOptimize, IOptimizationLogger logger, int failuresToReset,
+    public HillClimbingAlgorithm(QualityFunction functionToOptimize, int failuresToReset,
                                  int maxSamplesCount, double step, boolean resetResetsFailuresCounter) {
         super(functionToOptimize);
 
-        this.logger = logger;
         this.failuresToReset = failuresToReset;
         this.maxSamplesCount = maxSamplesCount;
         this.step = step;
@@ -34,56 +30,29 @@ public class HillClimbingAlgorithm extends OptimizationAlgorithm {
         int lastSuccess = 0;
         // Get random starting point
         double[] x = this.randomSampleWithinFunctionBounds();
-        double[] x_prime;
+        double[] x_prime = new double[functionToOptimize.getDimension()];
+        // Reset points come from the sampler of the algorithm, at most one per failuresToReset + 1 samples
+        ISampler resets = getSampler().equals(Samplers.UNIFORM) ? null : createSampler(maxSamplesCount / (failuresToReset + 1L) + 1, getRandom().split());
 
         // Evaluate starting point and log
-        ValuedSample bestSample = new ValuedSample(x, functionToOptimize, getIteration());
-        logger.logSample(bestSample);
-
-        // In bound checker counter
-        int[] drawRetries = new int[functionToOptimize.getDimension()];
-        Arrays.fill(drawRetries, 15);
+        double bestValue = evaluate(x);
 
         // Until all iterations done
         while (samplesCount < maxSamplesCount)
         {
-            // Set from where we start to looking
-            x_prime = Arrays.copyOf(x, functionToOptimize.getDimension());
-
-            // Update every dim of point with std dev `step`
-            for (int dim = 0; dim < functionToOptimize.getDimension(); ++dim)
-            {
-                int cnt = 0;
-                do {
-                    if (cnt == drawRetries[dim]) {
-                        if (drawRetries[dim] > 1) {
-                            drawRetries[dim] -= 1;
-                        }
-                        x_prime[dim] = x[dim];
-                        break;
-                    }
-
-                    x_prime[dim] = Utilities.generateGaussian(x[dim], step);
-
-                    cnt += 1;
-                } while (x_prime[dim] < functionToOptimize.getLowerBoundary()[dim] || x_prime[dim] > functionToOptimize.getUpperBoundary()[dim]);
-
-                if (cnt < drawRetries[dim]) {
-                    drawRetries[dim] = 15;
-                }
-            }
+            // Update every dim of point with std dev `step`, keeping it within bounds
+            getMutation().mutate(getRandom(), x, step, functionToOptimize.getLowerBoundary(), functionToOptimize.getUpperBoundary(), x_prime);
 
             // Evaluate new sample
-            ValuedSample testSample = new ValuedSample(x_prime, functionToOptimize, getIteration());
+            double testValue = evaluate(x_prime);
             samplesCount++;
-            logger.logSample(testSample);
 
             // Test new sample if it is better or not
-            if (testSample.getValue() < bestSample.getValue())
+            if (testValue < bestValue)
             {
                 lastSuccess = 0;
-                bestSample = testSample;
-                x = Arrays.copyOf(x_prime, x_prime.length);
+                bestValue = testValue;
+                System.arraycopy(x_prime, 0, x, 0, x.length);
             }
             else
             {
@@ -97,12 +66,17 @@ public class HillClimbingAlgorithm extends OptimizationAlgorithm {
                 }
 
                 // Generate new random point
-                x = this.randomSampleWithinFunctionBounds();
+                if (resets == null) {
+                    getRandom().fillUniform(x, functionToOptimize.getLowerBoundary(), functionToOptimize.getUpperBoundary());
+                }
+                else {
+                    resets.next(x);
+                    scaleToFunctionBounds(x);
+                }
             }
         }
-        logger.flushSamples();
 
-        return bestSample;
+        return finishRun();
     }
 
     public void setStep(double step) {
@@ -1,13 +1,34 @@
 package pl.piotrpodbielski.pw.mini.mlog.algorithms;
 
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.islands.IMigration;
+import pl.piotrpodbielski.pw.mini.mlog.enums.BoundHandlings;
+import pl.piotrpodbielski.pw.mini.mlog.enums.Samplers;
+import pl.piotrpodbielski.pw.mini.mlog.enums.TerminationReasons;
 import pl.piotrpodbielski.pw.mini.mlog.functions.QualityFunction;
+import pl.piotrpodbielski.pw.mini.mlog.loggers.NullOptimizationLogger;
+import pl.piotrpodbielski.pw.mini.mlog.mutations.IBoundedMutation;
+import pl.piotrpodbielski.pw.mini.mlog.mutations.ReflectingMutation;
+import pl.piotrpodbielski.pw.mini.mlog.mutations.TruncatingMutation;
+import pl.piotrpodbielski.pw.mini.mlog.mutations.WrappingMutation;
+import pl.piotrpodbielski.pw.mini.mlog.samplers.HaltonSampler;
+import pl.piotrpodbielski.pw.mini.mlog.samplers.ISampler;
+import pl.piotrpodbielski.pw.mini.mlog.samplers.LatinHypercubeSampler;
+import pl.piotrpodbielski.pw.mini.mlog.samplers.SobolSampler;
+import pl.piotrpodbielski.pw.mini.mlog.samplers.UniformSampler;
 import pl.piotrpodbielski.pw.mini.mlog.various.NotImplementedException;
-import pl.piotrpodbielski.pw.mini.mlog.various.Utilities;
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+import pl.piotrpodbielski.pw.mini.mlog.various.RunContext;
 import pl.piotrpodbielski.pw.mini.mlog.various.ValuedSample;
 
 public abstract class OptimizationAlgorithm {
     protected QualityFunction functionToOptimize;
-    private int iteration;
+    private RunContext runContext = new RunContext(0, new RandomContext(1), new NullOptimizationLogger());
+    private Samplers sampler = Samplers.UNIFORM;
+    private BoundHandlings boundHandling = BoundHandlings.TRUNCATE;
+    private IBoundedMutation mutation = new TruncatingMutation();
+    private IMigration migration;
+    private boolean synchronousGenerations = false;
+    private int evaluationThreads = 1;
 
     protected OptimizationAlgorithm(QualityFunction qualityFunction) {
         this.functionToOptimize = qualityFunction;
@@ -15,23 +36,222 @@ public abstract class OptimizationAlgorithm {
 
     protected double[] randomSampleWithinFunctionBounds()
     {
-        double[] x = new double[functionToOptimize.getDimension()];
-        for (int dim = 0; dim < functionToOptimize.getDimension(); dim++)
-        {
-            x[dim] = functionToOptimize.getLowerBoundary()[dim] +
-                    (functionToOptimize.getUpperBoundary()[dim] - functionToOptimize.getLowerBoundary()[dim]) * Utilities.getRandomGenerator().nextDouble();
+        return randomSamplesWithinFunctionBounds(1)[0];
+    }
+
+    /**
+     * Initial samples (e.g. population) spread over the search space by the sampler of the algorithm.
+     */
+    protected double[][] randomSamplesWithinFunctionBounds(int count)
+    {
+        if (sampler.equals(Samplers.UNIFORM)) {
+            double[][] samples = new double[count][functionToOptimize.getDimension()];
+            for (double[] x : samples) {
+                getRandom().fillUniform(x, functionToOptimize.getLowerBoundary(), functionToOptimize.getUpperBoundary());
+            }
+            return samples;
+        }
+
+        ISampler samplerOfBatch = createSampler(count, getRandom().split());
+        double[][] samples = new double[count][functionToOptimize.getDimension()];
+        for (double[] x : samples) {
+            samplerOfBatch.next(x);
+            scaleToFunctionBounds(x);
+        }
+        return samples;
+    }
+
+    /**
+     * Sampler of the algorithm for a sequence of (expected) length points, scrambled with random.
+     */
+    protected ISampler createSampler(long points, RandomContext random) {
+        int dimension = functionToOptimize.getDimension();
+
+        if (sampler.equals(Samplers.SOBOL)) {
+            return new SobolSampler(dimension, random);
+        }
+        else if (sampler.equals(Samplers.HALTON)) {
+            return new HaltonSampler(dimension, random);
+        }
+        else if (sampler.equals(Samplers.LATIN_HYPERCUBE)) {
+            return new LatinHypercubeSampler(points, random);
+        }
+        return new UniformSampler(dimension, random);
+    }
+
+    /**
+     * Maps point of the unit cube to the search space.
+     */
+    protected void scaleToFunctionBounds(double[] x) {
+        double[] lower = functionToOptimize.getLowerBoundary();
+        double[] upper = functionToOptimize.getUpperBoundary();
+        for (int i = 0; i < x.length; ++i) {
+            x[i] = lower[i] + (upper[i] - lower[i]) * x[i];
+        }
+    }
+
+    /**
+     * Lets population of an island exchange individuals with other islands; called by population algorithms after
+     * every generation. Rows of population may be replaced (never modified) together with their values.
+     */
+    protected void migrate(double[][] population, double[] values) {
+        if (migration != null) {
+            migration.migrate(population, values);
         }
+    }
+
+    protected boolean isMigrating() {
+        return migration != null;
+    }
+
+    /**
+     * Stops the run (so that it may be restarted) when rows [0, count) of population have collapsed: their standard
+     * deviation, relative to the width of the search space and averaged over dimensions, fell below the diversity
+     * threshold of its termination. Called by population algorithms after every generation.
+     */
+    protected void checkDiversity(double[][] population, int count) {
+        double threshold = runContext.getTermination().getDiversityThreshold();
+        if (threshold <= 0 || count < 2) {
+            return;
+        }
+
+        double[] lower = functionToOptimize.getLowerBoundary();
+        double[] upper = functionToOptimize.getUpperBoundary();
+        double diversity = 0;
+        for (int dim = 0; dim < lower.length; dim++) {
+            double mean = 0;
+            for (int i = 0; i < count; i++) {
+                mean += population[i][dim];
+            }
+            mean /= count;
+
+            double variance = 0;
+            for (int i = 0; i < count; i++) {
+                double d = population[i][dim] - mean;
+                variance += d * d;
+            }
+            diversity += Math.sqrt(variance / count) / (upper[dim] - lower[dim]);
+        }
+
+        if (diversity / lower.length < threshold) {
+            runContext.stop(TerminationReasons.DIVERSITY);
+        }
+    }
+
+    protected double evaluate(double[] x) {
+        return runContext.evaluate(functionToOptimize, x);
+    }
+
+    /**
+     * Evaluates x which differs from previous, of value previousValue, only at coordinates changed[0..count) (ascending,
+     * without repetitions), incrementally if the function allows it.
+     */
+    protected double evaluate(double[] previous, double previousValue, double[] x, int[] changed, int count) {
+        return runContext.evaluate(functionToOptimize, previous, previousValue, x, changed, count);
+    }
+
+    protected void evaluate(double[][] population, int from, int to, double[] values) {
+        runContext.evaluate(functionToOptimize, population, from, to, values);
+    }
 
-        return x;
+    /**
+     * Evaluator of generations of the run; has to be closed when the run finishes.
+     */
+    GenerationEvaluator createGenerationEvaluator() {
+        return new GenerationEvaluator(functionToOptimize, runContext, evaluationThreads);
+    }
+
+    /**
+     * Flushes samples recorded during the run and returns the best one.
+     */
+    protected ValuedSample finishRun() {
+        runContext.flushSamples();
+
+        return runContext.getBestSample();
     }
 
     public abstract ValuedSample optimize() throws NotImplementedException;
 
-    public void setIteration(int iteration) {
-        this.iteration = iteration;
-    };
+    /**
+     * Sets context (with logger) of the next run; every run should get its own one.
+     */
+    public void setRunContext(RunContext runContext) {
+        this.runContext = runContext;
+    }
+
+    public void setSampler(Samplers sampler) {
+        this.sampler = sampler;
+    }
+
+    public Samplers getSampler() {
+        return sampler;
+    }
+
+    /**
+     * How mutations (of HC, HC + AdSS, ES and SA) keep coordinates within bounds.
+     */
+    public void setBoundHandling(BoundHandlings boundHandling) {
+        this.boundHandling = boundHandling;
+
+        if (boundHandling.equals(BoundHandlings.REFLECT)) {
+            this.mutation = new ReflectingMutation();
+        }
+        else if (boundHandling.equals(BoundHandlings.WRAP)) {
+            this.mutation = new WrappingMutation();
+        }
+        else {
+            this.mutation = new TruncatingMutation();
+        }
+    }
+
+    public BoundHandlings getBoundHandling() {
+        return boundHandling;
+    }
+
+    protected IBoundedMutation getMutation() {
+        return mutation;
+    }
+
+    public void setMigration(IMigration migration) {
+        this.migration = migration;
+    }
+
+    /**
+     * Population algorithms (AdSS, DE, PSO) then create all candidates of a generation from the previous one, evaluate
+     * them together and only then select; BE always works this way.
+     */
+    public void setSynchronousGenerations(boolean synchronousGenerations) {
+        this.synchronousGenerations = synchronousGenerations;
+    }
+
+    public boolean isSynchronousGenerations() {
+        return synchronousGenerations;
+    }
+
+    /**
+     * Number of threads evaluating candidates of a generation (of algorithms evaluating whole generations).
+     */
+    public void setEvaluationThreads(int evaluationThreads) {
+        if (evaluationThreads < 1) {
+            throw new Error("Number of threads has to be positive.");
+        }
+
+        this.evaluationThreads = evaluationThreads;
+    }
+
+    public int getEvaluationThreads() {
+        return evaluationThreads;
+    }
+
+    public RunContext getRunContext() {
+        return runContext;
+    }
 
     public int getIteration() {
-        return iteration;
+        return runContext.getIteration();
+    }
+
+    public RandomContext getRandom() {
+        return runContext.getRandom();
     }
 }
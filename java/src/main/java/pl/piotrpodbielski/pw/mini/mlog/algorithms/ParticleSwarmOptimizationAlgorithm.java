@@ -1,82 +1,74 @@
 package pl.piotrpodbielski.pw.mini.mlog.algorithms;
 
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.topologies.INeighbourhood;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.topologies.NearestNeighbourhood;
 import pl.piotrpodbielski.pw.mini.mlog.functions.QualityFunction;
-import pl.piotrpodbielski.pw.mini.mlog.loggers.IOptimizationLogger;
 import pl.piotrpodbielski.pw.mini.mlog.various.NotImplementedException;
-import pl.piotrpodbielski.pw.mini.mlog.various.Utilities;
 import pl.piotrpodbielski.pw.mini.mlog.various.ValuedSample;
 
 public class ParticleSwarmOptimizationAlgorithm extends OptimizationAlgorithm {
-    private final IOptimizationLogger logger;
     private final int maxSamplesCount;
     private final int numberOfParticles;
     private final double omega;
     private final double c_1;
     private final double c_2;
+    private final INeighbourhood neighbourhood;
 
-    public ParticleSwarmOptimizationAlgorithm(QualityFunction qualityFunction, IOptimizationLogger logger,
+    public ParticleSwarmOptimizationAlgorithm(QualityFunction qualityFunction,
                                               int maxSamplesCount, int numberOfParticles, double omega, double c_1, double c_2) {
+        this(qualityFunction, maxSamplesCount, numberOfParticles, omega, c_1, c_2, new NearestNeighbourhood());
+    }
+
+    public ParticleSwarmOptimizationAlgorithm(QualityFunction qualityFunction,
+                                              int maxSamplesCount, int numberOfParticles, double omega, double c_1, double c_2,
+                                              INeighbourhood neighbourhood) {
         super(qualityFunction);
-        this.logger = logger;
         this.maxSamplesCount = maxSamplesCount;
         this.numberOfParticles = numberOfParticles;
         this.omega = omega;
         this.c_1 = c_1;
         this.c_2 = c_2;
+        this.neighbourhood = neighbourhood;
 
         if (this.numberOfParticles < 3) {
             throw new Error("Number of particles must be greater than 2 in order to correctly initialize velocity of each particle.");
         }
     }
 
-    private static double calculateEuclideanDistance(double[] firstDouble, double[] secondDouble) {
-        double sum = 0;
-        for (int i = 0; i < firstDouble.length; ++i) {
-            sum += Math.pow(firstDouble[i] - secondDouble[i], 2);
+    private void updateVelocity(double[] velocity, double[] x, double[] best, double[] neighbour) {
+        for (int j = 0; j < this.functionToOptimize.getDimension(); ++j) {
+            velocity[j] = this.omega * velocity[j]
+                    + this.c_1 * (best[j] - x[j])
+                    + this.c_2 * (neighbour[j] - x[j]);
         }
-
-        return Math.sqrt(sum);
     }
 
-    private double[] getClosestNeighbour(double[][] population, int idx) {
-        double[] neighbour = {0, 0};
-        double neighbourDistance = 10e99;
-
-        for (int i = 0; i < population.length; ++i) {
-            if (i == idx) {
-                continue;
-            }
-
-            double distance = calculateEuclideanDistance(population[i], population[idx]);
-            if (distance < neighbourDistance) {
-                neighbourDistance = distance;
-                neighbour = population[i];
-            }
+    @Override
+    public ValuedSample optimize() throws NotImplementedException {
+        try (GenerationEvaluator evaluator = createGenerationEvaluator()) {
+            return optimize(evaluator);
         }
-
-        return neighbour;
     }
 
-    @Override
-    public ValuedSample optimize() throws NotImplementedException {
+    private ValuedSample optimize(GenerationEvaluator evaluator) {
         int samplesCount = 0;
 
         // Initialise population of n particles
-        double[] best = {0, 0};
-        ValuedSample bestSample = null;
+        // Global best follows the particle which found it (its current position), not the position itself
+        int bestParticle = 0;
+        double bestValue = Double.MAX_VALUE;
 
-        double[][] population = new double[numberOfParticles][];
+        double[][] population = randomSamplesWithinFunctionBounds(numberOfParticles);
 
-        for (int i = 0; i < numberOfParticles; ++i) {
-            population[i] = this.randomSampleWithinFunctionBounds();
+        double[] populationValues = new double[numberOfParticles];
+        evaluator.evaluate(population, 0, numberOfParticles, populationValues);
 
-            ValuedSample particleSample = new ValuedSample(population[i], functionToOptimize, getIteration());
-            logger.logSample(particleSample);
+        for (int i = 0; i < numberOfParticles; ++i) {
             samplesCount++;
 
-            if (bestSample == null || particleSample.getValue() < bestSample.getValue()) {
-                best = population[i];
-                bestSample = particleSample;
+            if (populationValues[i] < bestValue) {
+                bestParticle = i;
+                bestValue = populationValues[i];
             }
         }
 
@@ -85,11 +77,11 @@ public class ParticleSwarmOptimizationAlgorithm extends OptimizationAlgorithm {
             int firstParticleIdx, secondParticleIdx;
 
             do {
-                firstParticleIdx = Utilities.getRandomGenerator().nextInt(numberOfParticles);
+                firstParticleIdx = getRandom().nextInt(numberOfParticles);
             } while (firstParticleIdx == i);
 
             do {
-                secondParticleIdx = Utilities.getRandomGenerator().nextInt(numberOfParticles);
+                secondParticleIdx = getRandom().nextInt(numberOfParticles);
             } while (secondParticleIdx == i || firstParticleIdx == secondParticleIdx);
 
             populationVelocity[i] = new double[this.functionToOptimize.getDimension()];
@@ -98,6 +90,46 @@ public class ParticleSwarmOptimizationAlgorithm extends OptimizationAlgorithm {
             }
         }
 
+        neighbourhood.reset(population, populationValues, getRandom());
+
+        if (isSynchronousGenerations()) {
+            while (samplesCount < maxSamplesCount) {
+                // The whole swarm moves before any particle is evaluated
+                int count = Math.min(numberOfParticles, maxSamplesCount - samplesCount);
+                for (int i = 0; i < count; ++i) {
+                    for (int j = 0; j < this.functionToOptimize.getDimension(); ++j) {
+                        population[i][j] += populationVelocity[i][j];
+                    }
+                }
+
+                evaluator.evaluate(population, 0, count, populationValues);
+                samplesCount += count;
+
+                for (int i = 0; i < count; ++i) {
+                    if (populationValues[i] < bestValue) {
+                        bestParticle = i;
+                        bestValue = populationValues[i];
+                    }
+                }
+
+                if (samplesCount == maxSamplesCount) {
+                    break;
+                }
+
+                checkDiversity(population, numberOfParticles);
+
+                for (int i = 0; i < numberOfParticles; ++i) {
+                    neighbourhood.update(i);
+                }
+
+                for (int i = 0; i < numberOfParticles; ++i) {
+                    updateVelocity(populationVelocity[i], population[i], population[bestParticle], population[neighbourhood.getNeighbour(i)]);
+                }
+            }
+
+            return finishRun();
+        }
+
         // Until all iterations done
         boolean runFlag = true;
         while (runFlag) {
@@ -108,13 +140,13 @@ public class ParticleSwarmOptimizationAlgorithm extends OptimizationAlgorithm {
                 }
 
                 // Evaluate
-                ValuedSample sample = new ValuedSample(population[i], functionToOptimize, getIteration());
-                logger.logSample(sample);
+                double value = evaluate(population[i]);
+                populationValues[i] = value;
                 samplesCount++;
 
-                if (sample.getValue() < bestSample.getValue()) {
-                    best = population[i];
-                    bestSample = sample;
+                if (value < bestValue) {
+                    bestParticle = i;
+                    bestValue = value;
                 }
 
                 // Stop if maxSampleCount almost exceeded
@@ -124,19 +156,19 @@ public class ParticleSwarmOptimizationAlgorithm extends OptimizationAlgorithm {
                 }
 
                 // Get g best
-                double[] neighbour = this.getClosestNeighbour(population, i);
+                double[] best = population[bestParticle];
+                neighbourhood.update(i);
+                double[] neighbour = population[neighbourhood.getNeighbour(i)];
 
                 // Update v
-                for (int j = 0; j < this.functionToOptimize.getDimension(); ++j) {
-                    populationVelocity[i][j] = this.omega * populationVelocity[i][j]
-                            + this.c_1 * (best[j] - population[i][j])
-                            + this.c_2 * (neighbour[j] - population[i][j]);
-                }
+                updateVelocity(populationVelocity[i], population[i], best, neighbour);
             }
-        }
 
-        logger.flushSamples();
+            if (runFlag) {
+                checkDiversity(population, numberOfParticles);
+            }
+        }
 
-        return bestSample;
+        return finishRun();
     }
 }
@@ -1,34 +1,30 @@
 package pl.piotrpodbielski.pw.mini.mlog.algorithms;
 
 import pl.piotrpodbielski.pw.mini.mlog.functions.QualityFunction;
-import pl.piotrpodbielski.pw.mini.mlog.loggers.IOptimizationLogger;
-import pl.piotrpodbielski.pw.mini.mlog.various.Utilities;
 import pl.piotrpodbielski.pw.mini.mlog.various.ValuedSample;
 
-import java.util.Arrays;
-
 public class SimulatedAnnealingAlgorithm extends OptimizationAlgorithm {
 
     public static final double GAMMA = 8;
+    // Normal steps which a mutation of a coordinate sums up
+    private static final int STEPS = 5;
 
-    final IOptimizationLogger logger;
     final int initTemperature;
 
-    public SimulatedAnnealingAlgorithm(QualityFunction functionToOptimize, IOptimizationLogger logger, int initTemperature) {
+    public SimulatedAnnealingAlgorithm(QualityFunction functionToOptimize, int initTemperature) {
         super(functionToOptimize);
 
-        this.logger = logger;
         this.initTemperature = initTemperature;
     }
 
-    private static double getAcceptanceProbability(ValuedSample bestSample, ValuedSample testSample, double temperature, int initTemperature) {
-        if (testSample.getValue() < bestSample.getValue()) {
+    private static double getAcceptanceProbability(double currentValue, double testValue, double temperature, int initTemperature) {
+        if (testValue < currentValue) {
             return 1.0;
         }
 
         double alpha = ((initTemperature - temperature) / initTemperature) * Math.E * 2;
 
-        return Math.exp(-alpha * (1 - (bestSample.getValue() - testSample.getValue()) / testSample.getValue()));
+        return Math.exp(-alpha * (1 - (currentValue - testValue) / testValue));
     }
 
     /**
@@ -49,11 +45,10 @@ public class SimulatedAnnealingAlgorithm extends OptimizationAlgorithm {
         // How many tries between last success and now?
 
         double[] x = this.randomSampleWithinFunctionBounds();
-        double[] x_prime;
+        double[] x_prime = new double[functionToOptimize.getDimension()];
 
         // Evaluate starting point and log
-        ValuedSample bestSample = new ValuedSample(x, functionToOptimize, getIteration());
-        logger.logSample(bestSample);
+        double currentValue = evaluate(x);
 
         double temperature = initTemperature;
 
@@ -61,38 +56,29 @@ public class SimulatedAnnealingAlgorithm extends OptimizationAlgorithm {
         while (temperature > 0)
         {
 
-            // Set from where we start to looking
-            x_prime = Arrays.copyOf(x, functionToOptimize.getDimension());
-
-            // Update every dim of point with std dev `step`
+            // Update every dim of point with std dev `step`; one draw of a walk of STEPS such steps, kept within bounds
             for (int dim = 0; dim < functionToOptimize.getDimension(); ++dim)
             {
-                int tries = 5;
-                do
-                {
-                    tries--;
-                    x_prime[dim] = Utilities.generateGaussian(x_prime[dim], getStepBasedOnTemperature(temperature, initTemperature, functionToOptimize.getLowerBoundary()[dim], functionToOptimize.getUpperBoundary()[dim]));
-                } while (tries > 0 || x_prime[dim] < functionToOptimize.getLowerBoundary()[dim] || x_prime[dim] > functionToOptimize.getUpperBoundary()[dim]);
+                double step = getStepBasedOnTemperature(temperature, initTemperature, functionToOptimize.getLowerBoundary()[dim], functionToOptimize.getUpperBoundary()[dim]);
+                x_prime[dim] = getMutation().mutate(getRandom(), x[dim], step * Math.sqrt(STEPS), functionToOptimize.getLowerBoundary()[dim], functionToOptimize.getUpperBoundary()[dim]);
             }
 
             // Evaluate new sample
-            ValuedSample testSample = new ValuedSample(x_prime, functionToOptimize, getIteration());
-            logger.logSample(testSample);
+            double testValue = evaluate(x_prime);
 
             // Calculate acceptance probability
-            final double acceptanceProbability = getAcceptanceProbability(bestSample, testSample, temperature, initTemperature);
+            final double acceptanceProbability = getAcceptanceProbability(currentValue, testValue, temperature, initTemperature);
 
             // Test new sample whether should be accepted or not
-            if (acceptanceProbability > Utilities.getRandomGenerator().nextDouble())
+            if (acceptanceProbability > getRandom().nextDouble())
             {
-                bestSample = testSample;
-                x = Arrays.copyOf(x_prime, x_prime.length);
+                currentValue = testValue;
+                System.arraycopy(x_prime, 0, x, 0, x.length);
             }
 
             temperature -= 1.0;
         }
-        logger.flushSamples();
 
-        return bestSample;
+        return finishRun();
     }
 }
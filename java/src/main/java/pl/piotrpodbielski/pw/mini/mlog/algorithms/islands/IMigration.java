@@ -0,0 +1,13 @@
+package pl.piotrpodbielski.pw.mini.mlog.algorithms.islands;
+
+/**
+ * Exchange of individuals between an island and the others.
+ */
+public interface IMigration {
+    /**
+     * Called by an island after every generation: sends copies of its best individuals when it is time to and takes
+     * immigrants which have arrived meanwhile in place of its worst individuals (if they are better). Replaced rows of
+     * population are new arrays, so the old ones may still be referenced elsewhere.
+     */
+    void migrate(double[][] population, double[] values);
+}
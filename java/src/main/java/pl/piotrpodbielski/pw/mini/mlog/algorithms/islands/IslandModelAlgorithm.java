@@ -0,0 +1,344 @@
+package pl.piotrpodbielski.pw.mini.mlog.algorithms.islands;
+
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.OptimizationAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.enums.MigrationTopologies;
+import pl.piotrpodbielski.pw.mini.mlog.functions.QualityFunction;
+import pl.piotrpodbielski.pw.mini.mlog.loggers.IOptimizationLogger;
+import pl.piotrpodbielski.pw.mini.mlog.loggers.SampleBuffer;
+import pl.piotrpodbielski.pw.mini.mlog.various.NotImplementedException;
+import pl.piotrpodbielski.pw.mini.mlog.various.RunContext;
+import pl.piotrpodbielski.pw.mini.mlog.various.RunStoppedException;
+import pl.piotrpodbielski.pw.mini.mlog.various.ValuedSample;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Island model: populations of the same algorithm evolve concurrently, each on its own thread, sharing one budget and
+ * exchanging best individuals every migrationInterval generations. Runs with more than one island are not reproducible.
+ */
+public class IslandModelAlgorithm extends OptimizationAlgorithm {
+    final private static int RING_SIZE = 8; // batches of an island waiting to be recorded
+
+    private static class Migrants {
+        final double[][] population;
+        final double[] values;
+
+        Migrants(double[][] population, double[] values) {
+            this.population = population;
+            this.values = values;
+        }
+    }
+
+    private final int maxSamplesCount;
+    private final int islands;
+    private final int migrationInterval;
+    private final int migrantsCount;
+    private final MigrationTopologies topology;
+    private final Supplier<OptimizationAlgorithm> islandFactory;
+
+    private AtomicReferenceArray<Migrants> links; // [from * islands + to]
+
+    public IslandModelAlgorithm(QualityFunction functionToOptimize, int maxSamplesCount, int islands, int migrationInterval,
+                                int migrantsCount, MigrationTopologies topology, Supplier<OptimizationAlgorithm> islandFactory) {
+        super(functionToOptimize);
+
+        if (islands < 2 || migrationInterval < 1 || migrantsCount < 0) {
+            throw new Error("Island model needs at least two islands, positive migration interval and non-negative number of migrants.");
+        }
+
+        this.maxSamplesCount = maxSamplesCount;
+        this.islands = islands;
+        this.migrationInterval = migrationInterval;
+        this.migrantsCount = migrantsCount;
+        this.topology = topology;
+        this.islandFactory = islandFactory;
+    }
+
+    @Override
+    public ValuedSample optimize() throws NotImplementedException {
+        RunContext runContext = getRunContext();
+        AtomicInteger budget = new AtomicInteger(Math.min(maxSamplesCount, runContext.getRemainingSteps()));
+        AtomicInteger runningIslands = new AtomicInteger(islands);
+        Thread recorder = Thread.currentThread();
+        IslandLogger[] loggers = new IslandLogger[islands];
+        links = new AtomicReferenceArray<>(islands * islands);
+
+        ExecutorService executor = Executors.newFixedThreadPool(islands);
+        try {
+            List<Future<?>> runs = new ArrayList<>(islands);
+            for (int i = 0; i < islands; i++) {
+                OptimizationAlgorithm island = islandFactory.get();
+                island.setSampler(getSampler());
+                island.setBoundHandling(getBoundHandling());
+                island.setSynchronousGenerations(isSynchronousGenerations());
+                island.setEvaluationThreads(getEvaluationThreads());
+                island.setMigration(new Migration(i));
+
+                loggers[i] = new IslandLogger(recorder);
+                RunContext islandContext = new RunContext(getIteration(), getRandom().fork(i), loggers[i]);
+                islandContext.setSharedBudget(budget);
+                island.setRunContext(islandContext);
+
+                runs.add(executor.submit(() -> {
+                    try {
+                        island.optimize();
+                    } catch (RunStoppedException e) {
+                        // Budget is exhausted
+                    } finally {
+                        runningIslands.decrementAndGet();
+                        LockSupport.unpark(recorder);
+                    }
+                    return null;
+                }));
+            }
+
+            recordSamples(loggers, runningIslands, budget);
+
+            for (Future<?> run : runs) {
+                try {
+                    run.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof NotImplementedException) {
+                        throw (NotImplementedException) e.getCause();
+                    }
+                    throw new RuntimeException(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
+        } finally {
+            // Islands still running (when recording failed) stop at their next sample
+            budget.set(0);
+            executor.shutdownNow();
+        }
+
+        return finishRun();
+    }
+
+    /**
+     * Records batches of all islands in the context of the run until all islands finish. Once the context stops the run,
+     * batches are only discarded (so that no island waits for a free slot) and the budget is emptied.
+     */
+    private void recordSamples(IslandLogger[] loggers, AtomicInteger runningIslands, AtomicInteger budget) {
+        RunContext runContext = getRunContext();
+        double[] x = new double[functionToOptimize.getDimension()];
+        boolean stopped = false;
+
+        while (true) {
+            // Read before draining, so that batches published before islands finished are drained too
+            boolean finished = runningIslands.get() == 0;
+
+            boolean recorded = false;
+            for (IslandLogger logger : loggers) {
+                for (SampleBuffer samples = logger.peek(); samples != null; samples = logger.peek()) {
+                    if (!stopped) {
+                        try {
+                            record(runContext, samples, x);
+                        } catch (RunStoppedException e) {
+                            stopped = true;
+                            budget.set(0);
+                        }
+                    }
+                    logger.release();
+                    recorded = true;
+                }
+            }
+
+            if (finished) {
+                break;
+            }
+            if (!recorded) {
+                LockSupport.park(this);
+            }
+        }
+    }
+
+    private static void record(RunContext runContext, SampleBuffer samples, double[] x) {
+        for (int i = 0; i < samples.size(); ++i) {
+            for (int dim = 0; dim < x.length; dim++) {
+                x[dim] = samples.getX(i, dim);
+            }
+            runContext.record(x, samples.getValue(i));
+        }
+    }
+
+    private int[] getTargets(int island) {
+        if (topology.equals(MigrationTopologies.RING)) {
+            return new int[]{(island + 1) % islands};
+        }
+
+        int[] targets = new int[islands - 1];
+        for (int i = 0, t = 0; i < islands; i++) {
+            if (i != island) {
+                targets[t++] = i;
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Migration of one island, used only by its thread.
+     */
+    private class Migration implements IMigration {
+        private final int island;
+        private final int[] targets;
+        private int generation = 0;
+
+        Migration(int island) {
+            this.island = island;
+            this.targets = getTargets(island);
+        }
+
+        @Override
+        public void migrate(double[][] population, double[] values) {
+            if (++generation % migrationInterval != 0 || migrantsCount == 0) {
+                return;
+            }
+
+            emigrate(population, values);
+
+            for (int from = 0; from < islands; from++) {
+                Migrants migrants = from != island ? links.getAndSet(from * islands + island, null) : null;
+                if (migrants != null) {
+                    immigrate(migrants, population, values);
+                }
+            }
+        }
+
+        private void emigrate(double[][] population, double[] values) {
+            int count = Math.min(migrantsCount, population.length);
+            boolean[] chosen = new boolean[population.length];
+            double[][] migrantPopulation = new double[count][];
+            double[] migrantValues = new double[count];
+
+            for (int m = 0; m < count; m++) {
+                int best = -1;
+                for (int i = 0; i < population.length; i++) {
+                    if (!chosen[i] && (best < 0 || values[i] < values[best])) {
+                        best = i;
+                    }
+                }
+                chosen[best] = true;
+                migrantPopulation[m] = population[best].clone();
+                migrantValues[m] = values[best];
+            }
+
+            // Receivers only read migrants, so all of them may share the copies
+            Migrants migrants = new Migrants(migrantPopulation, migrantValues);
+            for (int target : targets) {
+                links.set(island * islands + target, migrants);
+            }
+        }
+
+        private void immigrate(Migrants migrants, double[][] population, double[] values) {
+            for (int m = 0; m < migrants.values.length; m++) {
+                int worst = 0;
+                for (int i = 1; i < population.length; i++) {
+                    if (values[i] > values[worst]) {
+                        worst = i;
+                    }
+                }
+
+                if (migrants.values[m] < values[worst]) {
+                    population[worst] = migrants.population[m].clone();
+                    values[worst] = migrants.values[m];
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands samples of an island over to the thread running the model through a bounded single-producer
+     * single-consumer ring of copies, so an island waits only when that thread lags behind, never for other islands.
+     */
+    private static class IslandLogger implements IOptimizationLogger {
+        private final SampleBuffer[] ring = new SampleBuffer[RING_SIZE];
+        private final AtomicLong head = new AtomicLong(); // next batch to be recorded
+        private final AtomicLong tail = new AtomicLong(); // next batch to be published
+        private final Thread recorder;
+        private volatile Thread blockedIsland;
+
+        IslandLogger(Thread recorder) {
+            this.recorder = recorder;
+        }
+
+        @Override
+        public void logSamples(SampleBuffer samples) {
+            if (samples.isEmpty()) {
+                return;
+            }
+
+            long t = tail.get();
+            if (t - head.get() >= ring.length) {
+                blockedIsland = Thread.currentThread();
+                while (t - head.get() >= ring.length) {
+                    // The model was shut down without draining the ring, these samples will never be recorded
+                    if (Thread.currentThread().isInterrupted()) {
+                        blockedIsland = null;
+                        throw new RunStoppedException(samples.getStep(0));
+                    }
+                    LockSupport.park(this);
+                }
+                blockedIsland = null;
+            }
+
+            int slot = (int) (t % ring.length);
+            if (ring[slot] == null) {
+                ring[slot] = new SampleBuffer(samples.getCapacity(), samples.getDimension());
+            }
+            for (int i = 0; i < samples.size(); ++i) {
+                ring[slot].append(samples, i);
+            }
+            tail.set(t + 1);
+            LockSupport.unpark(recorder);
+        }
+
+        /**
+         * Oldest batch not recorded yet, null if there is none; used only by the thread running the model.
+         */
+        SampleBuffer peek() {
+            long h = head.get();
+            return h < tail.get() ? ring[(int) (h % ring.length)] : null;
+        }
+
+        /**
+         * Frees the slot of the batch returned by peek().
+         */
+        void release() {
+            long h = head.get();
+            ring[(int) (h % ring.length)].clear();
+            head.set(h + 1);
+
+            Thread island = blockedIsland;
+            if (island != null) {
+                LockSupport.unpark(island);
+            }
+        }
+
+        @Override
+        public void flushSamples() {
+            // Logger of the run is flushed when the whole run finishes
+        }
+
+        @Override
+        public void resetLogger() {
+
+        }
+
+        @Override
+        public void closeLogger() {
+
+        }
+    }
+}
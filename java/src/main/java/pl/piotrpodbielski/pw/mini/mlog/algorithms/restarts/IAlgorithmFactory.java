@@ -0,0 +1,14 @@
+package pl.piotrpodbielski.pw.mini.mlog.algorithms.restarts;
+
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.OptimizationAlgorithm;
+
+/**
+ * Creates the algorithm of every restart of a run.
+ */
+public interface IAlgorithmFactory {
+    /**
+     * Algorithm using at most evaluations samples, whose population (if it has one) is populationFactor times as large
+     * as the configured one.
+     */
+    OptimizationAlgorithm create(int evaluations, double populationFactor);
+}
@@ -0,0 +1,103 @@
+package pl.piotrpodbielski.pw.mini.mlog.algorithms.restarts;
+
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.OptimizationAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.enums.RestartStrategies;
+import pl.piotrpodbielski.pw.mini.mlog.functions.QualityFunction;
+import pl.piotrpodbielski.pw.mini.mlog.various.NotImplementedException;
+import pl.piotrpodbielski.pw.mini.mlog.various.RunContext;
+import pl.piotrpodbielski.pw.mini.mlog.various.RunStoppedException;
+import pl.piotrpodbielski.pw.mini.mlog.various.ValuedSample;
+
+/**
+ * Runs algorithms created by the factory one after another in the same run context, each with the budget the previous
+ * ones left, restarting whenever a run stops for a restartable reason or finishes early (IPOP and BIPOP grow populations).
+ */
+public class RestartingAlgorithm extends OptimizationAlgorithm {
+    private final int maxSamplesCount;
+    private final RestartStrategies strategy;
+    private final IAlgorithmFactory factory;
+
+    private int restarts;
+
+    public RestartingAlgorithm(QualityFunction functionToOptimize, int maxSamplesCount, RestartStrategies strategy, IAlgorithmFactory factory) {
+        super(functionToOptimize);
+        this.maxSamplesCount = maxSamplesCount;
+        this.strategy = strategy;
+        this.factory = factory;
+    }
+
+    @Override
+    public ValuedSample optimize() throws NotImplementedException {
+        RunContext runContext = getRunContext();
+        // Restarts share the budget of the run, whose last sample stops it
+        runContext.setStepsLimit(runContext.getStep() + Math.min(maxSamplesCount, runContext.getRemainingSteps()));
+
+        double largeFactor = 1;
+        long largeBudget = 0;
+        long smallBudget = 0;
+        restarts = 0;
+
+        while (runContext.getRemainingSteps() > 0) {
+            boolean large = true;
+            double factor = 1;
+            if (strategy.equals(RestartStrategies.IPOP)) {
+                factor = largeFactor;
+            }
+            else if (strategy.equals(RestartStrategies.BIPOP)) {
+                large = restarts == 0 || smallBudget >= largeBudget;
+                if (large) {
+                    factor = largeFactor;
+                }
+                else {
+                    double u = getRandom().nextDouble();
+                    factor = Math.pow(largeFactor / 2, u * u);
+                }
+            }
+
+            OptimizationAlgorithm algorithm = factory.create(runContext.getRemainingSteps(), factor);
+            algorithm.setSampler(getSampler());
+            algorithm.setBoundHandling(getBoundHandling());
+            algorithm.setSynchronousGenerations(isSynchronousGenerations());
+            algorithm.setEvaluationThreads(getEvaluationThreads());
+            algorithm.setRunContext(runContext);
+
+            runContext.beginRestart();
+            int start = runContext.getStep();
+            try {
+                algorithm.optimize();
+            } catch (RunStoppedException e) {
+                if (!e.getReason().isRestartable()) {
+                    throw e;
+                }
+            }
+
+            // Island models swallow the stop of their islands
+            if (runContext.getStopReason() != null && !runContext.getStopReason().isRestartable()) {
+                break;
+            }
+
+            int used = runContext.getStep() - start;
+            if (used == 0) {
+                break;
+            }
+
+            if (large) {
+                largeBudget += used;
+                largeFactor *= 2;
+            }
+            else {
+                smallBudget += used;
+            }
+            restarts++;
+        }
+
+        return finishRun();
+    }
+
+    /**
+     * Number of times the last run was restarted.
+     */
+    public int getRestarts() {
+        return restarts;
+    }
+}
@@ -1,26 +1,224 @@
 package pl.piotrpodbielski.pw.mini.mlog.algorithms.simple;
 
 import pl.piotrpodbielski.pw.mini.mlog.algorithms.OptimizationAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.various.RunContext;
 import pl.piotrpodbielski.pw.mini.mlog.various.ValuedSample;
 import pl.piotrpodbielski.pw.mini.mlog.functions.QualityFunction;
-import pl.piotrpodbielski.pw.mini.mlog.loggers.IOptimizationLogger;
-import pl.piotrpodbielski.pw.mini.mlog.various.NotImplementedException;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evaluates lattice points (gridDensityPerDimension per dimension, boundaries included) in order of their index until
+ * all of them or maxSamplesCount are evaluated; the run is the same for any number of threads.
+ */
 public class GridSearchAlgorithm extends OptimizationAlgorithm {
+    final private static int CHUNK = 4096;
 
-    private final IOptimizationLogger logger;
+    private final int maxSamplesCount;
     private final int gridDensityPerDimension;
+    private final int threads;
+
+    private double[][] lattice;
 
-    public GridSearchAlgorithm(QualityFunction functionToOptimize, IOptimizationLogger logger, int gridDensityPerDimension) {
+    public GridSearchAlgorithm(QualityFunction functionToOptimize, int maxSamplesCount, int gridDensityPerDimension) {
+        this(functionToOptimize, maxSamplesCount, gridDensityPerDimension, 1);
+    }
+
+    public GridSearchAlgorithm(QualityFunction functionToOptimize, int maxSamplesCount, int gridDensityPerDimension, int threads) {
         super(functionToOptimize);
 
-        this.logger = logger;
+        if (gridDensityPerDimension < 1 || threads < 1) {
+            throw new Error("Grid density and number of threads have to be positive.");
+        }
+
+        this.maxSamplesCount = maxSamplesCount;
         this.gridDensityPerDimension = gridDensityPerDimension;
+        this.threads = threads;
     }
 
 
     @Override
-    public ValuedSample optimize() throws NotImplementedException {
-        throw new NotImplementedException();
+    public ValuedSample optimize() {
+        int dimension = functionToOptimize.getDimension();
+        lattice = new double[dimension][gridDensityPerDimension];
+        for (int dim = 0; dim < dimension; dim++) {
+            double lower = functionToOptimize.getLowerBoundary()[dim];
+            double upper = functionToOptimize.getUpperBoundary()[dim];
+            for (int i = 0; i < gridDensityPerDimension; i++) {
+                lattice[dim][i] = gridDensityPerDimension > 1 ? lower + (upper - lower) * i / (gridDensityPerDimension - 1) : (lower + upper) / 2;
+            }
+        }
+
+        // Lattice of high dimension may have more points than a long can count, but only the budget matters
+        long points = 1;
+        for (int dim = 0; dim < dimension && points < maxSamplesCount; dim++) {
+            points *= gridDensityPerDimension;
+        }
+        points = Math.max(Math.min(points, maxSamplesCount), 0);
+
+        if (threads == 1) {
+            double[] x = new double[dimension];
+            int[] digits = new int[dimension];
+            setPoint(0, digits, x);
+            for (long index = 0; index < points; index++) {
+                evaluate(x);
+                nextPoint(digits, x);
+            }
+        }
+        else {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                if (getRunContext().isRecordingSamples()) {
+                    sweepInOrder(pool, (int) points);
+                }
+                else {
+                    sweepForBest(pool, (int) Math.min(points, getRunContext().getRemainingSteps()));
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        return finishRun();
+    }
+
+    /**
+     * Evaluates a window of chunks ahead of the one being recorded, reusing their buffers.
+     */
+    private void sweepInOrder(ForkJoinPool pool, int points) {
+        RunContext runContext = getRunContext();
+        Chunk[] window = new Chunk[2 * threads];
+        int chunks = (points + CHUNK - 1) / CHUNK;
+
+        for (int k = 0; k < Math.min(window.length, chunks); k++) {
+            window[k] = new Chunk();
+            window[k].from = (long) k * CHUNK;
+            window[k].count = (int) Math.min(CHUNK, points - window[k].from);
+            pool.execute(window[k]);
+        }
+
+        double[] x = new double[functionToOptimize.getDimension()];
+        int[] digits = new int[x.length];
+        for (int k = 0; k < chunks; k++) {
+            Chunk chunk = window[k % window.length];
+            chunk.join();
+
+            setPoint(chunk.from, digits, x);
+            for (int i = 0; i < chunk.count; i++) {
+                runContext.record(x, chunk.values[i]);
+                nextPoint(digits, x);
+            }
+
+            if (k + window.length < chunks) {
+                chunk.reinitialize();
+                chunk.from = (long) (k + window.length) * CHUNK;
+                chunk.count = (int) Math.min(CHUNK, points - chunk.from);
+                pool.execute(chunk);
+            }
+        }
+    }
+
+    private void sweepForBest(ForkJoinPool pool, int points) {
+        if (points <= 0) {
+            return;
+        }
+
+        Sweep sweep = new Sweep(0, points);
+        pool.invoke(sweep);
+
+        double[] x = new double[functionToOptimize.getDimension()];
+        setPoint(sweep.bestIndex, new int[x.length], x);
+        getRunContext().recordEvaluated(points, x, sweep.bestValue, (int) sweep.bestIndex);
+    }
+
+    private void setPoint(long index, int[] digits, double[] x) {
+        for (int dim = 0; dim < x.length; dim++) {
+            digits[dim] = (int) (index % gridDensityPerDimension);
+            index /= gridDensityPerDimension;
+            x[dim] = lattice[dim][digits[dim]];
+        }
+    }
+
+    private void nextPoint(int[] digits, double[] x) {
+        for (int dim = 0; dim < x.length; dim++) {
+            if (++digits[dim] < gridDensityPerDimension) {
+                x[dim] = lattice[dim][digits[dim]];
+                return;
+            }
+            digits[dim] = 0;
+            x[dim] = lattice[dim][0];
+        }
+    }
+
+    /**
+     * Values of count points starting with index from.
+     */
+    private class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final double[] values = new double[CHUNK];
+        final double[] x = new double[functionToOptimize.getDimension()];
+        final int[] digits = new int[x.length];
+        long from;
+        int count;
+
+        @Override
+        protected void compute() {
+            setPoint(from, digits, x);
+            for (int i = 0; i < count; i++) {
+                values[i] = functionToOptimize.getValue(x);
+                nextPoint(digits, x);
+            }
+        }
+    }
+
+    /**
+     * Best point of indices [from, to), the first one of equally good.
+     */
+    private class Sweep extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long from;
+        private final long to;
+        long bestIndex = -1;
+        double bestValue = Double.MAX_VALUE;
+
+        Sweep(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK) {
+                double[] x = new double[functionToOptimize.getDimension()];
+                int[] digits = new int[x.length];
+                setPoint(from, digits, x);
+                for (long index = from; index < to; index++) {
+                    double value = functionToOptimize.getValue(x);
+                    if (value < bestValue || bestIndex < 0) {
+                        bestValue = value;
+                        bestIndex = index;
+                    }
+                    nextPoint(digits, x);
+                }
+                return;
+            }
+
+            long middle = (from + to) >>> 1;
+            Sweep left = new Sweep(from, middle);
+            Sweep right = new Sweep(middle, to);
+            invokeAll(left, right);
+
+            if (right.bestValue < left.bestValue) {
+                bestIndex = right.bestIndex;
+                bestValue = right.bestValue;
+            }
+            else {
+                bestIndex = left.bestIndex;
+                bestValue = left.bestValue;
+            }
+        }
     }
 }
@@ -1,42 +1,150 @@
 package pl.piotrpodbielski.pw.mini.mlog.algorithms.simple;
 
 import pl.piotrpodbielski.pw.mini.mlog.algorithms.OptimizationAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.enums.Samplers;
+import pl.piotrpodbielski.pw.mini.mlog.samplers.ISampler;
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+import pl.piotrpodbielski.pw.mini.mlog.various.RunContext;
 import pl.piotrpodbielski.pw.mini.mlog.various.ValuedSample;
 import pl.piotrpodbielski.pw.mini.mlog.functions.QualityFunction;
-import pl.piotrpodbielski.pw.mini.mlog.loggers.IOptimizationLogger;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
- * @
+ * Random sampling of the search space, uniform or with the low-discrepancy sampler of the algorithm; the run is the
+ * same for any number of threads.
  */
 public class MonteCarloAlgorithm extends OptimizationAlgorithm {
+    final private static int CHUNK = 1024;
+    final private static long SAMPLER_STREAM = -1; // chunks of uniform samples use streams from 0
 
-    private final IOptimizationLogger logger;
     private final int samplesCount;
+    private final int threads;
+
+    public MonteCarloAlgorithm(QualityFunction functionToOptimize, int samplesCount) {
+        this(functionToOptimize, samplesCount, 1);
+    }
 
-    public MonteCarloAlgorithm(QualityFunction functionToOptimize, IOptimizationLogger logger, int samplesCount) {
+    public MonteCarloAlgorithm(QualityFunction functionToOptimize, int samplesCount, int threads) {
         super(functionToOptimize);
 
-        this.logger = logger;
+        if (threads < 1) {
+            throw new Error("Number of threads has to be positive.");
+        }
+
         this.samplesCount = samplesCount;
+        this.threads = threads;
     }
 
     @Override
     public ValuedSample optimize() {
-        ValuedSample bestSample = null;
-        for (int sampleIdx = 0; sampleIdx < samplesCount; sampleIdx++)
-        {
-            double[] x = this.randomSampleWithinFunctionBounds();
-
-            ValuedSample testSample = new ValuedSample(x, functionToOptimize, getIteration());
-            logger.logSample(testSample);
-            if (bestSample == null || testSample.getValue() < bestSample.getValue())
-            {
-                bestSample = testSample;
+        RunContext runContext = getRunContext();
+        int samples = runContext.isRecordingSamples() ? samplesCount : Math.min(samplesCount, runContext.getRemainingSteps());
+        int chunks = (Math.max(samples, 0) + CHUNK - 1) / CHUNK;
+
+        if (threads == 1) {
+            Chunk chunk = new Chunk();
+            for (int k = 0; k < chunks; k++) {
+                chunk.set(k, samples);
+                chunk.compute();
+                record(chunk);
+            }
+
+            return finishRun();
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            Chunk[] window = new Chunk[2 * threads];
+            for (int k = 0; k < Math.min(window.length, chunks); k++) {
+                window[k] = new Chunk();
+                window[k].set(k, samples);
+                pool.execute(window[k]);
+            }
+
+            for (int k = 0; k < chunks; k++) {
+                Chunk chunk = window[k % window.length];
+                chunk.join();
+                record(chunk);
+
+                if (k + window.length < chunks) {
+                    chunk.reinitialize();
+                    chunk.set(k + window.length, samples);
+                    pool.execute(chunk);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        return finishRun();
+    }
+
+    private void record(Chunk chunk) {
+        RunContext runContext = getRunContext();
+        int dimension = functionToOptimize.getDimension();
+
+        if (!runContext.isRecordingSamples()) {
+            int best = 0;
+            for (int i = 1; i < chunk.count; i++) {
+                if (chunk.values[i] < chunk.values[best]) {
+                    best = i;
+                }
             }
+            System.arraycopy(chunk.points, best * dimension, chunk.x, 0, dimension);
+            runContext.recordEvaluated(chunk.count, chunk.x, chunk.values[best], best);
+            return;
         }
 
-        logger.flushSamples();
+        for (int i = 0; i < chunk.count; i++) {
+            System.arraycopy(chunk.points, i * dimension, chunk.x, 0, dimension);
+            runContext.record(chunk.x, chunk.values[i]);
+        }
+    }
+
+    /**
+     * Samples of chunk number index (stored row-major) with their values.
+     */
+    private class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final double[] points = new double[CHUNK * functionToOptimize.getDimension()];
+        final double[] values = new double[CHUNK];
+        final double[] x = new double[functionToOptimize.getDimension()];
+        int index;
+        int count;
 
-        return bestSample;
+        void set(int index, int samples) {
+            this.index = index;
+            this.count = Math.min(CHUNK, samples - index * CHUNK);
+        }
+
+        @Override
+        protected void compute() {
+            if (getSampler().equals(Samplers.UNIFORM)) {
+                RandomContext random = getRandom().fork(index);
+                double[] lower = functionToOptimize.getLowerBoundary();
+                double[] upper = functionToOptimize.getUpperBoundary();
+
+                for (int i = 0, offset = 0; i < count; i++) {
+                    for (int dim = 0; dim < x.length; dim++, offset++) {
+                        points[offset] = lower[dim] + (upper[dim] - lower[dim]) * random.nextDouble();
+                    }
+                }
+            }
+            else {
+                // Every chunk takes its part of one sequence scrambled the same way
+                ISampler sampler = createSampler(samplesCount, getRandom().fork(SAMPLER_STREAM));
+                sampler.skip((long) index * CHUNK);
+
+                for (int i = 0; i < count; i++) {
+                    sampler.next(x);
+                    scaleToFunctionBounds(x);
+                    System.arraycopy(x, 0, points, i * x.length, x.length);
+                }
+            }
+            functionToOptimize.getValues(points, count, values);
+        }
     }
 }
@@ -0,0 +1,18 @@
+package pl.piotrpodbielski.pw.mini.mlog.algorithms.topologies;
+
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+
+/**
+ * Chooses the particle whose position guides (besides the global best) the velocity of a particle.
+ * Positions and values are read from the arrays given to reset, which the swarm keeps updating.
+ */
+public interface INeighbourhood {
+    void reset(double[][] population, double[] values, RandomContext random);
+
+    /**
+     * Called after particle idx has moved and its value has been updated.
+     */
+    void update(int idx);
+
+    int getNeighbour(int idx);
+}
@@ -0,0 +1,33 @@
+package pl.piotrpodbielski.pw.mini.mlog.algorithms.topologies;
+
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+
+/**
+ * Particle with the lowest value (the first one of equally good) among fixed informants of a particle.
+ */
+abstract class InformantsNeighbourhood implements INeighbourhood {
+    double[] values;
+    int[][] informants;
+
+    @Override
+    public void reset(double[][] population, double[] values, RandomContext random) {
+        this.values = values;
+    }
+
+    @Override
+    public void update(int idx) {
+
+    }
+
+    @Override
+    public int getNeighbour(int idx) {
+        int neighbour = informants[idx][0];
+        for (int informant : informants[idx]) {
+            if (values[informant] < values[neighbour] || (values[informant] == values[neighbour] && informant < neighbour)) {
+                neighbour = informant;
+            }
+        }
+
+        return neighbour;
+    }
+}
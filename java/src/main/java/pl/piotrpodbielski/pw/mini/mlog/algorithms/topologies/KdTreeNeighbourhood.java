@@ -0,0 +1,195 @@
+package pl.piotrpodbielski.pw.mini.mlog.algorithms.topologies;
+
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+
+/**
+ * The closest particle, found in a k-d tree of positions; ties are broken as by NearestNeighbourhood, except among
+ * particles at the position of the particle itself, which guide it alike.
+ */
+public class KdTreeNeighbourhood implements INeighbourhood {
+    private static final int NONE = -1;
+
+    private double[][] population;
+    private int dimension;
+
+    // Nodes: particle, position at insertion, children, whether particle is still there
+    private int[] particles = new int[0];
+    private double[] coordinates = new double[0];
+    private int[] left = new int[0];
+    private int[] right = new int[0];
+    private boolean[] alive = new boolean[0];
+    private int nodes;
+    private int root;
+
+    private int[] nodeOfParticle;
+    private int[] order;
+
+    private int queryParticle;
+    private double[] queryPoint;
+    private int bestParticle;
+    private double bestDistance;
+
+    @Override
+    public void reset(double[][] population, double[] values, RandomContext random) {
+        this.population = population;
+        this.dimension = population[0].length;
+        this.nodeOfParticle = new int[population.length];
+        this.order = new int[population.length];
+        ensureCapacity(2 * population.length + 1);
+        rebuild();
+    }
+
+    @Override
+    public void update(int idx) {
+        alive[nodeOfParticle[idx]] = false;
+
+        if (nodes >= 2 * population.length) {
+            rebuild();
+            return;
+        }
+
+        int node = createNode(idx);
+        int parent = root;
+        for (int depth = 0; ; depth++) {
+            int axis = depth % dimension;
+            if (coordinates[node * dimension + axis] < coordinates[parent * dimension + axis]) {
+                if (left[parent] == NONE) {
+                    left[parent] = node;
+                    break;
+                }
+                parent = left[parent];
+            }
+            else {
+                if (right[parent] == NONE) {
+                    right[parent] = node;
+                    break;
+                }
+                parent = right[parent];
+            }
+        }
+    }
+
+    @Override
+    public int getNeighbour(int idx) {
+        queryParticle = idx;
+        queryPoint = population[idx];
+        bestParticle = NONE;
+        bestDistance = Double.MAX_VALUE;
+
+        search(root, 0);
+        return bestParticle;
+    }
+
+    private void search(int node, int depth) {
+        // Particles at the same position as the query one guide it all the same, whichever of them is returned
+        if (node == NONE || bestDistance == 0) {
+            return;
+        }
+
+        int particle = particles[node];
+        if (alive[node] && particle != queryParticle) {
+            double distance = 0;
+            for (int j = 0, offset = node * dimension; j < dimension; ++j) {
+                double difference = coordinates[offset + j] - queryPoint[j];
+                distance += difference * difference;
+            }
+            if (bestParticle == NONE || distance < bestDistance || (distance == bestDistance && particle < bestParticle)) {
+                bestDistance = distance;
+                bestParticle = particle;
+            }
+        }
+
+        int axis = depth % dimension;
+        double difference = queryPoint[axis] - coordinates[node * dimension + axis];
+        int near = difference < 0 ? left[node] : right[node];
+        int far = difference < 0 ? right[node] : left[node];
+
+        search(near, depth + 1);
+        // Equally distant particles behind the plane may still win by lower index
+        if (bestParticle == NONE || difference * difference <= bestDistance) {
+            search(far, depth + 1);
+        }
+    }
+
+    private void rebuild() {
+        nodes = 0;
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        root = build(0, order.length, 0);
+    }
+
+    private int build(int from, int to, int depth) {
+        if (from >= to) {
+            return NONE;
+        }
+
+        int axis = depth % dimension;
+        int middle = (from + to) >>> 1;
+        select(from, to - 1, middle, axis);
+
+        int node = createNode(order[middle]);
+        left[node] = build(from, middle, depth + 1);
+        right[node] = build(middle + 1, to, depth + 1);
+        return node;
+    }
+
+    /**
+     * Reorders order[from..to] so that order[k] has the particle which would be there if they were sorted by axis
+     * coordinate, with particles not greater before it and not smaller after it (quickselect).
+     */
+    private void select(int from, int to, int k, int axis) {
+        while (from < to) {
+            double pivot = population[order[(from + to) >>> 1]][axis];
+            int i = from;
+            int j = to;
+
+            while (i <= j) {
+                while (population[order[i]][axis] < pivot) {
+                    i++;
+                }
+                while (population[order[j]][axis] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = order[i];
+                    order[i++] = order[j];
+                    order[j--] = swap;
+                }
+            }
+
+            if (k <= j) {
+                to = j;
+            }
+            else if (k >= i) {
+                from = i;
+            }
+            else {
+                return;
+            }
+        }
+    }
+
+    private int createNode(int particle) {
+        int node = nodes++;
+        particles[node] = particle;
+        System.arraycopy(population[particle], 0, coordinates, node * dimension, dimension);
+        left[node] = NONE;
+        right[node] = NONE;
+        alive[node] = true;
+        nodeOfParticle[particle] = node;
+        return node;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (particles.length >= capacity) {
+            return;
+        }
+
+        particles = new int[capacity];
+        coordinates = new double[capacity * dimension];
+        left = new int[capacity];
+        right = new int[capacity];
+        alive = new boolean[capacity];
+    }
+}
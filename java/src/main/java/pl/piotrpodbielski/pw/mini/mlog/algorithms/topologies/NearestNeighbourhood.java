@@ -0,0 +1,51 @@
+package pl.piotrpodbielski.pw.mini.mlog.algorithms.topologies;
+
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+
+/**
+ * The closest particle (the first one of equally close), found by comparing squared distances to all of them.
+ */
+public class NearestNeighbourhood implements INeighbourhood {
+    private double[][] population;
+
+    @Override
+    public void reset(double[][] population, double[] values, RandomContext random) {
+        this.population = population;
+    }
+
+    @Override
+    public void update(int idx) {
+
+    }
+
+    @Override
+    public int getNeighbour(int idx) {
+        double[] x = population[idx];
+        int neighbour = -1;
+        double neighbourDistance = Double.MAX_VALUE;
+
+        for (int i = 0; i < population.length; ++i) {
+            if (i == idx) {
+                continue;
+            }
+
+            double distance = getSquaredDistance(population[i], x);
+            if (distance < neighbourDistance || neighbour < 0) {
+                neighbourDistance = distance;
+                neighbour = i;
+            }
+        }
+
+        return neighbour;
+    }
+
+    static double getSquaredDistance(double[] first, double[] second) {
+        double sum = 0;
+        for (int i = 0; i < first.length; ++i) {
+            double difference = first[i] - second[i];
+            sum += difference * difference;
+        }
+
+        return sum;
+    }
+}
@@ -0,0 +1,91 @@
+package pl.piotrpodbielski.pw.mini.mlog.algorithms.topologies;
+
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+
+/**
+ * Every particle informs itself and k random particles (adaptive random topology of SPSO 2007): informants of a
+ * particle are those which inform it. Links are drawn again after a sweep over the swarm which has not improved the
+ * best value.
+ */
+public class RandomNeighbourhood extends InformantsNeighbourhood {
+    private final int k;
+
+    private RandomContext random;
+    private int updates;
+    private double bestValue;
+    private boolean improved;
+
+    public RandomNeighbourhood(int k) {
+        if (k < 1) {
+            throw new Error("Number of informed particles has to be positive.");
+        }
+
+        this.k = k;
+    }
+
+    @Override
+    public void reset(double[][] population, double[] values, RandomContext random) {
+        super.reset(population, values, random);
+
+        this.random = random;
+        this.updates = 0;
+        this.bestValue = Double.MAX_VALUE;
+        for (double value : values) {
+            bestValue = Math.min(bestValue, value);
+        }
+        drawLinks();
+    }
+
+    @Override
+    public void update(int idx) {
+        if (values[idx] < bestValue) {
+            bestValue = values[idx];
+            improved = true;
+        }
+
+        if (++updates % values.length == 0) {
+            if (!improved) {
+                drawLinks();
+            }
+            improved = false;
+        }
+    }
+
+    private void drawLinks() {
+        int n = values.length;
+        int[] links = new int[n * (k + 1)]; // particles informed by particle i at [i * (k + 1), (i + 1) * (k + 1)), -1 if repeated
+        int[] counts = new int[n];
+
+        for (int i = 0, offset = 0; i < n; i++, offset += k + 1) {
+            links[offset] = i;
+            counts[i]++;
+            for (int link = 1; link <= k; link++) {
+                int informed = random.nextInt(n);
+                for (int previous = offset; previous < offset + link; previous++) {
+                    if (links[previous] == informed) {
+                        informed = -1;
+                        break;
+                    }
+                }
+                links[offset + link] = informed;
+                if (informed >= 0) {
+                    counts[informed]++;
+                }
+            }
+        }
+
+        informants = new int[n][];
+        for (int j = 0; j < n; j++) {
+            informants[j] = new int[counts[j]];
+            counts[j] = 0;
+        }
+        for (int i = 0, offset = 0; i < n; i++, offset += k + 1) {
+            for (int link = 0; link <= k; link++) {
+                int informed = links[offset + link];
+                if (informed >= 0) {
+                    informants[informed][counts[informed]++] = i;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package pl.piotrpodbielski.pw.mini.mlog.algorithms.topologies;
+
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+
+/**
+ * Informants of a particle are the previous and the next one (by index, wrapping around).
+ */
+public class RingNeighbourhood extends InformantsNeighbourhood {
+    @Override
+    public void reset(double[][] population, double[] values, RandomContext random) {
+        super.reset(population, values, random);
+
+        int n = population.length;
+        informants = new int[n][];
+        for (int i = 0; i < n; i++) {
+            informants[i] = new int[]{(i + n - 1) % n, (i + 1) % n};
+        }
+    }
+}
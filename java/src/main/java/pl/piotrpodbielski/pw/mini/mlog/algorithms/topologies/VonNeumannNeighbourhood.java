@@ -0,0 +1,27 @@
+package pl.piotrpodbielski.pw.mini.mlog.algorithms.topologies;
+
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+
+/**
+ * Particles are laid out row by row on a torus of about square shape; informants of a particle are the ones above,
+ * below, left and right of it (positions past the last particle wrap around by index).
+ */
+public class VonNeumannNeighbourhood extends InformantsNeighbourhood {
+    @Override
+    public void reset(double[][] population, double[] values, RandomContext random) {
+        super.reset(population, values, random);
+
+        int n = population.length;
+        int columns = (int) Math.ceil(Math.sqrt(n));
+        informants = new int[n][];
+        for (int i = 0; i < n; i++) {
+            int row = i / columns;
+            int column = i % columns;
+            informants[i] = new int[]{
+                    (i + n - columns) % n,
+                    (i + columns) % n,
+                    (row * columns + (column + columns - 1) % columns) % n,
+                    (row * columns + (column + 1) % columns) % n};
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package pl.piotrpodbielski.pw.mini.mlog.enums;
+
+/**
+ * What a logger does with new samples when its writer can't keep up.
+ */
+public enum BackpressurePolicies {
+    BLOCK, // wait for the writer, nothing is lost
+    DROP, // drop new samples until there is room again
+    SAMPLE // keep every k-th sample, k doubling as long as the writer lags
+}
@@ -0,0 +1,7 @@
+package pl.piotrpodbielski.pw.mini.mlog.enums;
+
+public enum BoundHandlings {
+    TRUNCATE, // draw from the mutation distribution restricted to bounds
+    REFLECT,
+    WRAP
+}
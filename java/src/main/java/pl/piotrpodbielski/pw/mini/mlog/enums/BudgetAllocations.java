@@ -0,0 +1,7 @@
+package pl.piotrpodbielski.pw.mini.mlog.enums;
+
+public enum BudgetAllocations {
+    FULL, // every trial gets whole budget
+    SUCCESSIVE_HALVING, // only the best 1/eta of trials advance to eta times bigger budget
+    HYPERBAND // successive halving brackets with different minimal budgets
+}
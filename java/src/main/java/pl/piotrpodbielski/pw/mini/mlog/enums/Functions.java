@@ -2,5 +2,10 @@ package pl.piotrpodbielski.pw.mini.mlog.enums;
 
 public enum Functions {
     RASTRIGIN,
-    ROSENBROCK
+    ROSENBROCK,
+    SPHERE,
+    ACKLEY,
+    GRIEWANK,
+    SCHWEFEL,
+    ELLIPSOID
 }
@@ -0,0 +1,17 @@
+package pl.piotrpodbielski.pw.mini.mlog.enums;
+
+public enum LogFormats {
+    CSV("log.csv"),
+    BINARY("log.bin"),
+    SUMMARY("summary.csv"); // only aggregated convergence curve
+
+    private final String suffix;
+
+    LogFormats(String suffix) {
+        this.suffix = suffix;
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+}
@@ -0,0 +1,6 @@
+package pl.piotrpodbielski.pw.mini.mlog.enums;
+
+public enum MigrationTopologies {
+    RING, // island i sends migrants to island i + 1
+    FULLY_CONNECTED // every island sends migrants to all the others
+}
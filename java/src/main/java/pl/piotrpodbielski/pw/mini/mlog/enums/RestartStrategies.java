@@ -0,0 +1,8 @@
+package pl.piotrpodbielski.pw.mini.mlog.enums;
+
+public enum RestartStrategies {
+    NONE,
+    RESTART, // same parameters every time
+    IPOP, // population doubled at every restart
+    BIPOP // restarts with doubled and with small random populations, taking equal parts of the budget
+}
@@ -0,0 +1,8 @@
+package pl.piotrpodbielski.pw.mini.mlog.enums;
+
+public enum Samplers {
+    UNIFORM,
+    SOBOL, // scrambled, up to 21 dimensions
+    HALTON, // scrambled
+    LATIN_HYPERCUBE
+}
@@ -0,0 +1,6 @@
+package pl.piotrpodbielski.pw.mini.mlog.enums;
+
+public enum SearchStrategies {
+    RANDOM,
+    TPE
+}
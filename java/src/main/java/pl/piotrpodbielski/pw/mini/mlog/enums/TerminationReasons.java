@@ -0,0 +1,22 @@
+package pl.piotrpodbielski.pw.mini.mlog.enums;
+
+public enum TerminationReasons {
+    STEPS_LIMIT(false),
+    TARGET(false),
+    TIME_LIMIT(false),
+    STAGNATION(true),
+    DIVERSITY(true);
+
+    private final boolean restartable;
+
+    TerminationReasons(boolean restartable) {
+        this.restartable = restartable;
+    }
+
+    /**
+     * Whether the run may go on from a restart (the search got stuck rather than done or out of resources).
+     */
+    public boolean isRestartable() {
+        return restartable;
+    }
+}
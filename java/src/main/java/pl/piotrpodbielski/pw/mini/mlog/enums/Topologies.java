@@ -0,0 +1,12 @@
+package pl.piotrpodbielski.pw.mini.mlog.enums;
+
+/**
+ * Which particle guides a particle of PSO besides the global best.
+ */
+public enum Topologies {
+    NEAREST, // the closest particle, checking all of them
+    NEAREST_KD_TREE, // the closest particle (the same one as NEAREST), found in a k-d tree; for large swarms
+    RING, // the better of the previous and the next particle
+    VON_NEUMANN, // the best of four neighbours on a torus
+    RANDOM // the best of particles informing it at random, see --informed-particles
+}
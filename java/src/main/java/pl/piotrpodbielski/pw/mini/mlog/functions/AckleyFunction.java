@@ -0,0 +1,42 @@
+package pl.piotrpodbielski.pw.mini.mlog.functions;
+
+import java.util.stream.DoubleStream;
+
+public class AckleyFunction extends QualityFunction {
+    final double A = 20.0;
+    final double B = 0.2;
+    final double C = 2 * Math.PI;
+    private final IVectorKernels kernels;
+
+    public AckleyFunction(int dimension) {
+        this.dimension = dimension;
+        this.lowerBoundary = DoubleStream.generate(() -> -32.768).limit(dimension).toArray();
+        this.upperBoundary = DoubleStream.generate(() -> 32.768).limit(dimension).toArray();
+        this.optimum = new double[dimension];
+        this.optimumValue = 0.;
+
+        this.kernels = VectorKernels.forDimension(dimension);
+    }
+
+    @Override
+    public double getValue(double[] x) {
+        if (this.dimension != x.length)
+            throw new IllegalArgumentException("Wrong argument size");
+
+        double squares = 0.0;
+        double cosines = 0.0;
+        if (kernels != null) {
+            squares = kernels.sumOfSquares(x, 0, dimension);
+            cosines = kernels.sumOfCosines(x, 0, dimension, C);
+        }
+        else {
+            for (int dim = 0; dim < dimension; ++dim) {
+                squares += x[dim] * x[dim];
+                cosines += Math.cos(C * x[dim]);
+            }
+        }
+
+        // Clamped at 0, which rounding of the terms could slightly miss at the optimum
+        return Math.max(-A * Math.exp(-B * Math.sqrt(squares / dimension)) - Math.exp(cosines / dimension) + A + Math.E, 0.);
+    }
+}
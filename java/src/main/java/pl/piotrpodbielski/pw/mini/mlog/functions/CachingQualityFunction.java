@@ -0,0 +1,205 @@
+package pl.piotrpodbielski.pw.mini.mlog.functions;
+
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+
+/**
+ * Quality function remembering values of at most capacity recently evaluated genomes of a lattice (bitsPerDimension
+ * bits per dimension); points given as doubles only are not cached. Every run should use its own instance.
+ */
+public class CachingQualityFunction extends QualityFunction {
+    private final QualityFunction function;
+    private final int bitsPerDimension;
+    private final int words; // of a packed genome
+    private final int capacity;
+    private final int mask;
+
+    private final long[] keys; // packed genome of slot i at [i * words, (i + 1) * words)
+    private final double[] values;
+    private final int[] hashes;
+    private final boolean[] used;
+    private final boolean[] referenced;
+    private final long[] key;
+
+    private int size = 0;
+    private int hand = 0;
+    private boolean lastHit = false;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public CachingQualityFunction(QualityFunction function, int bitsPerDimension, int capacity) {
+        if (bitsPerDimension < 1 || bitsPerDimension > 64 || capacity < 1) {
+            throw new Error("Cache needs 1 to 64 bits per dimension and positive capacity.");
+        }
+
+        this.function = function;
+        this.dimension = function.dimension;
+        this.lowerBoundary = function.lowerBoundary;
+        this.upperBoundary = function.upperBoundary;
+        this.bitsPerDimension = bitsPerDimension;
+        this.words = (int) (((long) dimension * bitsPerDimension + 63) / 64);
+        this.capacity = capacity;
+
+        // At most half of slots are used, which keeps probe sequences short
+        int slots = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 2;
+        this.mask = slots - 1;
+        this.keys = new long[slots * words];
+        this.values = new double[slots];
+        this.hashes = new int[slots];
+        this.used = new boolean[slots];
+        this.referenced = new boolean[slots];
+        this.key = new long[words];
+    }
+
+    @Override
+    public double getValue(double[] x) {
+        return function.getValue(x);
+    }
+
+    @Override
+    public void getValues(double[][] population, int from, int to, double[] values) {
+        function.getValues(population, from, to, values);
+    }
+
+    @Override
+    public void getValues(double[] population, int count, double[] values) {
+        function.getValues(population, count, values);
+    }
+
+    /**
+     * Value of genome, which is x mapped to the search space; evaluates x only if genome is not in the cache.
+     */
+    public double getValue(long[] genome, double[] x) {
+        pack(genome);
+        int hash = hash();
+
+        int slot = hash & mask;
+        while (used[slot]) {
+            if (hashes[slot] == hash && matches(slot)) {
+                referenced[slot] = true;
+                lastHit = true;
+                hits++;
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        double value = function.getValue(x);
+        lastHit = false;
+        misses++;
+
+        if (size == capacity) {
+            evict();
+
+            // Eviction may have moved entries, so the free slot is searched for again
+            slot = hash & mask;
+            while (used[slot]) {
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        System.arraycopy(key, 0, keys, slot * words, words);
+        values[slot] = value;
+        hashes[slot] = hash;
+        used[slot] = true;
+        referenced[slot] = false;
+        size++;
+
+        return value;
+    }
+
+    /**
+     * Whether value of the last genome came from the cache.
+     */
+    public boolean isLastHit() {
+        return lastHit;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public double getHitRate() {
+        return hits + misses > 0 ? (double) hits / (hits + misses) : 0.;
+    }
+
+    private void pack(long[] genome) {
+        long valueMask = bitsPerDimension == 64 ? -1L : (1L << bitsPerDimension) - 1;
+
+        for (int w = 0; w < words; w++) {
+            key[w] = 0;
+        }
+        for (int dim = 0, bit = 0; dim < dimension; dim++, bit += bitsPerDimension) {
+            long value = genome[dim] & valueMask;
+            int word = bit >>> 6;
+            int shift = bit & 63;
+
+            key[word] |= value << shift;
+            if (shift + bitsPerDimension > 64) {
+                key[word + 1] |= value >>> (64 - shift);
+            }
+        }
+    }
+
+    private int hash() {
+        long h = 0;
+        for (long word : key) {
+            h = RandomContext.mix64(h ^ word);
+        }
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private boolean matches(int slot) {
+        for (int w = 0, offset = slot * words; w < words; w++, offset++) {
+            if (keys[offset] != key[w]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Clock: removes the first entry after the hand which has not been used since the hand last passed it.
+     */
+    private void evict() {
+        while (!used[hand] || referenced[hand]) {
+            referenced[hand] = false;
+            hand = (hand + 1) & mask;
+        }
+
+        remove(hand);
+        evictions++;
+    }
+
+    /**
+     * Empties slot, moving back later entries of its probe sequence (so no tombstones are needed).
+     */
+    private void remove(int slot) {
+        int free = slot;
+        for (int next = (slot + 1) & mask; used[next]; next = (next + 1) & mask) {
+            int home = hashes[next] & mask;
+
+            // Entry may move to the free slot unless its home lies cyclically in (free, next]
+            boolean stays = free <= next ? free < home && home <= next : free < home || home <= next;
+            if (!stays) {
+                System.arraycopy(keys, next * words, keys, free * words, words);
+                values[free] = values[next];
+                hashes[free] = hashes[next];
+                referenced[free] = referenced[next];
+                free = next;
+            }
+        }
+
+        used[free] = false;
+        referenced[free] = false;
+        size--;
+    }
+}
@@ -0,0 +1,41 @@
+package pl.piotrpodbielski.pw.mini.mlog.functions;
+
+import java.util.stream.DoubleStream;
+
+public class GriewankFunction extends QualityFunction {
+    private final double[] scales; // 1 / sqrt(i + 1)
+    private final IVectorKernels kernels;
+
+    public GriewankFunction(int dimension) {
+        this.dimension = dimension;
+        this.lowerBoundary = DoubleStream.generate(() -> -600.).limit(dimension).toArray();
+        this.upperBoundary = DoubleStream.generate(() -> 600.).limit(dimension).toArray();
+        this.optimum = new double[dimension];
+        this.optimumValue = 0.;
+
+        this.scales = new double[dimension];
+        for (int dim = 0; dim < dimension; ++dim) {
+            scales[dim] = 1. / Math.sqrt(dim + 1);
+        }
+
+        this.kernels = VectorKernels.forDimension(dimension);
+    }
+
+    @Override
+    public double getValue(double[] x) {
+        if (this.dimension != x.length)
+            throw new IllegalArgumentException("Wrong argument size");
+
+        if (kernels != null) {
+            return 1 + kernels.sumOfSquares(x, 0, dimension) / 4000 - kernels.productOfCosines(x, 0, scales);
+        }
+
+        double sum = 0.0;
+        double product = 1.0;
+        for (int dim = 0; dim < dimension; ++dim) {
+            sum += x[dim] * x[dim];
+            product *= Math.cos(x[dim] * scales[dim]);
+        }
+        return 1 + sum / 4000 - product;
+    }
+}
@@ -0,0 +1,39 @@
+package pl.piotrpodbielski.pw.mini.mlog.functions;
+
+/**
+ * Loops of quality functions over coordinates [offset, offset + length) of x, done with SIMD instructions; results differ
+ * from those of the scalar loops by rounding only.
+ */
+interface IVectorKernels {
+    /**
+     * Number of doubles processed at once.
+     */
+    int lanes();
+
+    double sumOfSquares(double[] x, int offset, int length);
+
+    /**
+     * Sum of weights[i] * x[offset + i]^2 for i in [0, weights.length).
+     */
+    double weightedSumOfSquares(double[] x, int offset, double[] weights);
+
+    /**
+     * Sum of cos(frequency * x[offset + i]).
+     */
+    double sumOfCosines(double[] x, int offset, int length, double frequency);
+
+    /**
+     * Product of cos(x[offset + i] * scales[i]) for i in [0, scales.length).
+     */
+    double productOfCosines(double[] x, int offset, double[] scales);
+
+    /**
+     * Sum of 100 (x[i + 1] - x[i]^2)^2 + (1 - x[i])^2 for i in [offset, offset + length - 1).
+     */
+    double rosenbrock(double[] x, int offset, int length);
+
+    /**
+     * Sum of x[i] sin(sqrt(|x[i]|)) with x[i] clamped to [-500, 500], minus squares of the parts clamped off.
+     */
+    double schwefel(double[] x, int offset, int length);
+}
@@ -4,9 +4,73 @@ public abstract class QualityFunction {
     int dimension;
     double[] lowerBoundary;
     double[] upperBoundary;
+    double[] optimum;
+    double optimumValue;
 
     public abstract double getValue(double[] x);
 
+    /**
+     * Evaluates rows [from, to) of population, storing value of population[i] in values[i].
+     */
+    public void getValues(double[][] population, int from, int to, double[] values) {
+        checkBatch(population, from, to, values);
+
+        for (int i = from; i < to; ++i) {
+            values[i] = getValue(population[i]);
+        }
+    }
+
+    public void getValues(double[][] population, double[] values) {
+        getValues(population, 0, population.length, values);
+    }
+
+    /**
+     * Evaluates count points stored row-major in population (point i at offset i * dimension).
+     */
+    public void getValues(double[] population, int count, double[] values) {
+        checkBatch(population, count, values);
+
+        double[] x = new double[dimension];
+        for (int i = 0; i < count; ++i) {
+            System.arraycopy(population, i * dimension, x, 0, dimension);
+            values[i] = getValue(x);
+        }
+    }
+
+    /**
+     * Value of x which differs from previous, of value previousValue, only at coordinates changed[0..count) (ascending,
+     * without repetitions). Functions which can compute it from the changed coordinates alone override this together
+     * with isIncremental; others evaluate x whole.
+     */
+    public double getValue(double[] previous, double previousValue, double[] x, int[] changed, int count) {
+        return getValue(x);
+    }
+
+    public boolean isIncremental() {
+        return false;
+    }
+
+    /**
+     * Incremental evaluation reads coordinates of previous and x only within this distance of the changed ones.
+     */
+    int getCouplingRadius() {
+        return 0;
+    }
+
+    void checkBatch(double[][] population, int from, int to, double[] values) {
+        if (from < 0 || to > population.length || to > values.length)
+            throw new IllegalArgumentException("Wrong batch range");
+        for (int i = from; i < to; ++i) {
+            if (population[i].length != dimension)
+                throw new IllegalArgumentException("Wrong argument size");
+        }
+    }
+
+    void checkBatch(double[] population, int count, double[] values) {
+        if (count < 0 || (long) count * dimension > population.length || count > values.length)
+            throw new IllegalArgumentException("Wrong batch range");
+    }
+
     public int getDimension() {
         return dimension;
     }
@@ -18,4 +82,15 @@ public abstract class QualityFunction {
     public double[] getUpperBoundary() {
         return upperBoundary;
     }
+
+    /**
+     * Point of the global minimum, e.g. for measuring evaluations needed to get within a target of it.
+     */
+    public double[] getOptimum() {
+        return optimum;
+    }
+
+    public double getOptimumValue() {
+        return optimumValue;
+    }
 }
@@ -4,20 +4,73 @@ import java.util.stream.DoubleStream;
 
 public class RastriginFunction extends QualityFunction {
     final double A = 10.0;
+    private final IVectorKernels kernels;
 
     public RastriginFunction(int dimension) {
         this.dimension = dimension;
         this.lowerBoundary = DoubleStream.generate(() -> -5.12).limit(dimension).toArray();
         this.upperBoundary = DoubleStream.generate(() -> 5.12).limit(dimension).toArray();
+        this.optimum = DoubleStream.generate(() -> 0.).limit(dimension).toArray();
+        this.optimumValue = 0.;
+
+        this.kernels = VectorKernels.forDimension(dimension);
     }
 
     @Override
     public double getValue(double[] x) {
         if (this.dimension != x.length)
             throw new IllegalArgumentException("Wrong argument size");
+        return value(x, 0);
+    }
+
+    @Override
+    public void getValues(double[][] population, int from, int to, double[] values) {
+        checkBatch(population, from, to, values);
+
+        for (int i = from; i < to; ++i) {
+            values[i] = value(population[i], 0);
+        }
+    }
+
+    @Override
+    public void getValues(double[] population, int count, double[] values) {
+        checkBatch(population, count, values);
+
+        for (int i = 0, offset = 0; i < count; ++i, offset += dimension) {
+            values[i] = value(population, offset);
+        }
+    }
+
+    /**
+     * Function is separable, so only terms of changed coordinates are replaced.
+     */
+    @Override
+    public double getValue(double[] previous, double previousValue, double[] x, int[] changed, int count) {
+        if (this.dimension != x.length || this.dimension != previous.length)
+            throw new IllegalArgumentException("Wrong argument size");
+
+        double result = previousValue;
+        for (int i = 0; i < count; ++i) {
+            int dim = changed[i];
+            result -= previous[dim] * previous[dim] - A * Math.cos(2 * Math.PI * previous[dim]);
+            result += x[dim] * x[dim] - A * Math.cos(2 * Math.PI * x[dim]);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isIncremental() {
+        return true;
+    }
+
+    private double value(double[] x, int offset) {
+        if (kernels != null) {
+            return kernels.sumOfSquares(x, offset, dimension) - A * kernels.sumOfCosines(x, offset, dimension, 2 * Math.PI) + A * dimension;
+        }
+
         double result = 0.0;
 
-        for (int dim = 0; dim < this.dimension; ++dim)
+        for (int dim = offset, end = offset + this.dimension; dim < end; ++dim)
         {
             result += x[dim] * x[dim];
             result -= A * Math.cos(2 * Math.PI * x[dim]);
@@ -3,19 +3,86 @@ package pl.piotrpodbielski.pw.mini.mlog.functions;
 import java.util.stream.DoubleStream;
 
 public class RosenbrockFunction extends QualityFunction {
+    private final IVectorKernels kernels;
 
     public RosenbrockFunction(int dimension) {
         this.dimension = dimension;
         this.lowerBoundary = DoubleStream.generate(() -> -2.048).limit(dimension).toArray();
         this.upperBoundary = DoubleStream.generate(() -> 2.048).limit(dimension).toArray();
+        this.optimum = DoubleStream.generate(() -> 1.).limit(dimension).toArray();
+        this.optimumValue = 0.;
+
+        this.kernels = VectorKernels.forDimension(dimension);
     }
 
     @Override
     public double getValue(double[] x) {
         if (this.dimension != x.length)
             throw new IllegalArgumentException("Wrong argument size");
+        return value(x, 0);
+    }
+
+    @Override
+    public void getValues(double[][] population, int from, int to, double[] values) {
+        checkBatch(population, from, to, values);
+
+        for (int i = from; i < to; ++i) {
+            values[i] = value(population[i], 0);
+        }
+    }
+
+    @Override
+    public void getValues(double[] population, int count, double[] values) {
+        checkBatch(population, count, values);
+
+        for (int i = 0, offset = 0; i < count; ++i, offset += dimension) {
+            values[i] = value(population, offset);
+        }
+    }
+
+    /**
+     * Coordinate dim is coupled only with its neighbours, so only terms dim - 1 and dim of changed coordinates are
+     * replaced.
+     */
+    @Override
+    public double getValue(double[] previous, double previousValue, double[] x, int[] changed, int count) {
+        if (this.dimension != x.length || this.dimension != previous.length)
+            throw new IllegalArgumentException("Wrong argument size");
+
+        double result = previousValue;
+        int lastTerm = -1;
+        for (int i = 0; i < count; ++i) {
+            for (int term = Math.max(changed[i] - 1, lastTerm + 1); term <= changed[i] && term < dimension - 1; ++term) {
+                result -= term(previous, term);
+                result += term(x, term);
+                lastTerm = term;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isIncremental() {
+        return true;
+    }
+
+    @Override
+    int getCouplingRadius() {
+        return 1;
+    }
+
+    private static double term(double[] x, int dim) {
+        return 100 * (x[dim+1]-x[dim]*x[dim]) *
+                (x[dim + 1] - x[dim] * x[dim]) + (1 - x[dim]) * (1 - x[dim]);
+    }
+
+    private double value(double[] x, int offset) {
+        if (kernels != null) {
+            return kernels.rosenbrock(x, offset, dimension);
+        }
+
         double result = 0.0;
-        for (int dim = 0; dim < dimension - 1; ++dim)
+        for (int dim = offset, end = offset + dimension - 1; dim < end; ++dim)
         {
             result += 100 * (x[dim+1]-x[dim]*x[dim]) *
                     (x[dim + 1] - x[dim] * x[dim]);
@@ -0,0 +1,102 @@
+package pl.piotrpodbielski.pw.mini.mlog.functions;
+
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Random orthogonal transformation, rotating blocks of at most BLOCK permuted coordinates; determined by dimension and
+ * seed, built once and shared by all functions (and threads) using it.
+ */
+class Rotation {
+    static final int BLOCK = 100;
+
+    private static final Map<String, Rotation> rotations = new ConcurrentHashMap<>();
+
+    private final int dimension;
+    private final int[] permutation;
+    private final double[][] blocks; // row-major orthogonal matrices, block k acts on permuted coordinates [k * BLOCK, ...)
+
+    private Rotation(int dimension, long seed) {
+        RandomContext random = new RandomContext(seed);
+        this.dimension = dimension;
+
+        this.permutation = new int[dimension];
+        for (int i = 0; i < dimension; i++) {
+            permutation[i] = i;
+        }
+        if (dimension > BLOCK) {
+            for (int i = dimension - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = permutation[i];
+                permutation[i] = permutation[j];
+                permutation[j] = swap;
+            }
+        }
+
+        this.blocks = new double[(dimension + BLOCK - 1) / BLOCK][];
+        for (int k = 0; k < blocks.length; k++) {
+            blocks[k] = randomOrthogonal(Math.min(BLOCK, dimension - k * BLOCK), random);
+        }
+    }
+
+    static Rotation get(int dimension, long seed) {
+        return rotations.computeIfAbsent(dimension + ":" + seed, key -> new Rotation(dimension, seed));
+    }
+
+    /**
+     * Orthonormalized (modified Gram-Schmidt) rows of a matrix with normal entries, which is a uniformly random
+     * orthogonal matrix.
+     */
+    private static double[] randomOrthogonal(int size, RandomContext random) {
+        double[] matrix = new double[size * size];
+        for (int row = 0; row < size; row++) {
+            int offset = row * size;
+            double norm;
+            do {
+                for (int col = 0; col < size; col++) {
+                    matrix[offset + col] = random.nextGaussian();
+                }
+                for (int previous = 0; previous < row; previous++) {
+                    double dot = 0.;
+                    for (int col = 0; col < size; col++) {
+                        dot += matrix[offset + col] * matrix[previous * size + col];
+                    }
+                    for (int col = 0; col < size; col++) {
+                        matrix[offset + col] -= dot * matrix[previous * size + col];
+                    }
+                }
+
+                norm = 0.;
+                for (int col = 0; col < size; col++) {
+                    norm += matrix[offset + col] * matrix[offset + col];
+                }
+                norm = Math.sqrt(norm);
+            } while (norm < 1e-8);
+
+            for (int col = 0; col < size; col++) {
+                matrix[offset + col] /= norm;
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Writes rotated x into y (which must be another array).
+     */
+    void apply(double[] x, double[] y) {
+        for (int k = 0, from = 0; k < blocks.length; k++, from += BLOCK) {
+            double[] block = blocks[k];
+            int size = Math.min(BLOCK, dimension - from);
+
+            for (int row = 0, offset = 0; row < size; row++) {
+                double sum = 0.;
+                for (int col = 0; col < size; col++, offset++) {
+                    sum += block[offset] * x[permutation[from + col]];
+                }
+                y[from + row] = sum;
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package pl.piotrpodbielski.pw.mini.mlog.functions;
+
+import java.util.stream.DoubleStream;
+
+public class SchwefelFunction extends QualityFunction {
+    final double A = 418.9828872724338;
+    final double OPTIMUM = 420.9687462275036;
+    private final IVectorKernels kernels;
+
+    public SchwefelFunction(int dimension) {
+        this.dimension = dimension;
+        this.lowerBoundary = DoubleStream.generate(() -> -500.).limit(dimension).toArray();
+        this.upperBoundary = DoubleStream.generate(() -> 500.).limit(dimension).toArray();
+        this.optimum = DoubleStream.generate(() -> OPTIMUM).limit(dimension).toArray();
+        this.kernels = VectorKernels.forDimension(dimension);
+        this.optimumValue = getValue(optimum);
+    }
+
+    @Override
+    public double getValue(double[] x) {
+        if (this.dimension != x.length)
+            throw new IllegalArgumentException("Wrong argument size");
+
+        if (kernels != null) {
+            return A * dimension - kernels.schwefel(x, 0, dimension);
+        }
+
+        double result = A * dimension;
+        for (int dim = 0; dim < dimension; ++dim) {
+            result -= term(x[dim]);
+        }
+        return result;
+    }
+
+    @Override
+    public double getValue(double[] previous, double previousValue, double[] x, int[] changed, int count) {
+        if (this.dimension != x.length || this.dimension != previous.length)
+            throw new IllegalArgumentException("Wrong argument size");
+
+        double result = previousValue;
+        for (int i = 0; i < count; ++i) {
+            int dim = changed[i];
+            result += term(previous[dim]) - term(x[dim]);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isIncremental() {
+        return true;
+    }
+
+    static double term(double x) {
+        double abs = Math.abs(x);
+        if (abs <= 500.) {
+            return x * Math.sin(Math.sqrt(abs));
+        }
+
+        // Beyond the bounds (which shifted variants reach) the function would keep falling, so it is penalized instead
+        double excess = abs - 500.;
+        return Math.copySign(500., x) * Math.sin(Math.sqrt(500.)) - excess * excess;
+    }
+}
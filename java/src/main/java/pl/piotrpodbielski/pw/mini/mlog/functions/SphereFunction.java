@@ -0,0 +1,50 @@
+package pl.piotrpodbielski.pw.mini.mlog.functions;
+
+import java.util.stream.DoubleStream;
+
+public class SphereFunction extends QualityFunction {
+    private final IVectorKernels kernels;
+
+    public SphereFunction(int dimension) {
+        this.dimension = dimension;
+        this.lowerBoundary = DoubleStream.generate(() -> -5.12).limit(dimension).toArray();
+        this.upperBoundary = DoubleStream.generate(() -> 5.12).limit(dimension).toArray();
+        this.optimum = new double[dimension];
+        this.optimumValue = 0.;
+
+        this.kernels = VectorKernels.forDimension(dimension);
+    }
+
+    @Override
+    public double getValue(double[] x) {
+        if (this.dimension != x.length)
+            throw new IllegalArgumentException("Wrong argument size");
+        if (kernels != null) {
+            return kernels.sumOfSquares(x, 0, dimension);
+        }
+
+        double result = 0.0;
+        for (int dim = 0; dim < dimension; ++dim) {
+            result += x[dim] * x[dim];
+        }
+        return result;
+    }
+
+    @Override
+    public double getValue(double[] previous, double previousValue, double[] x, int[] changed, int count) {
+        if (this.dimension != x.length || this.dimension != previous.length)
+            throw new IllegalArgumentException("Wrong argument size");
+
+        double result = previousValue;
+        for (int i = 0; i < count; ++i) {
+            int dim = changed[i];
+            result += x[dim] * x[dim] - previous[dim] * previous[dim];
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isIncremental() {
+        return true;
+    }
+}
@@ -0,0 +1,123 @@
+package pl.piotrpodbielski.pw.mini.mlog.functions;
+
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+
+import java.util.Arrays;
+
+/**
+ * Shifted and/or rotated variant of a function, f(R (x - o) + c) with its optimum at o; shift and rotation are fixed for
+ * given function and dimension, so all runs optimize the same variant.
+ */
+public class TransformedFunction extends QualityFunction {
+    private static final long SEED = 0x5EED_0F_F00DL;
+
+    private final QualityFunction function;
+    private final double[] shift;
+    private final Rotation rotation;
+    // Points of the inner function (and a buffer of rotation) per thread, as worker threads may share the function
+    private final ThreadLocal<double[][]> points;
+
+    public TransformedFunction(QualityFunction function, boolean shifted, boolean rotated) {
+        this.function = function;
+        this.dimension = function.dimension;
+        this.lowerBoundary = function.lowerBoundary;
+        this.upperBoundary = function.upperBoundary;
+        this.optimumValue = function.optimumValue;
+
+        long seed = RandomContext.mix64(SEED ^ function.getClass().getName().hashCode()) ^ dimension;
+        if (shifted) {
+            RandomContext random = new RandomContext(seed);
+            this.shift = new double[dimension];
+            for (int dim = 0; dim < dimension; ++dim) {
+                shift[dim] = lowerBoundary[dim] + (upperBoundary[dim] - lowerBoundary[dim]) * (0.1 + 0.8 * random.nextDouble());
+            }
+        }
+        else {
+            this.shift = Arrays.copyOf(function.optimum, dimension);
+        }
+        this.optimum = Arrays.copyOf(shift, dimension);
+        this.rotation = rotated ? Rotation.get(dimension, seed) : null;
+
+        int size = dimension;
+        this.points = ThreadLocal.withInitial(() -> new double[3][size]);
+    }
+
+    @Override
+    public double getValue(double[] x) {
+        if (this.dimension != x.length)
+            throw new IllegalArgumentException("Wrong argument size");
+
+        double[][] z = points.get();
+        return function.getValue(transform(x, z[0], z[2]));
+    }
+
+    @Override
+    public void getValues(double[][] population, int from, int to, double[] values) {
+        checkBatch(population, from, to, values);
+
+        double[][] z = points.get();
+        for (int i = from; i < to; ++i) {
+            values[i] = function.getValue(transform(population[i], z[0], z[2]));
+        }
+    }
+
+    /**
+     * Without rotation coordinates of the inner function change where those of x do, so only those which the inner
+     * function reads (changed ones and their neighbours within its coupling radius) are transformed.
+     */
+    @Override
+    public double getValue(double[] previous, double previousValue, double[] x, int[] changed, int count) {
+        if (!isIncremental()) {
+            return getValue(x);
+        }
+        if (this.dimension != x.length || this.dimension != previous.length)
+            throw new IllegalArgumentException("Wrong argument size");
+
+        double[][] z = points.get();
+        double[] c = function.optimum;
+        int radius = function.getCouplingRadius();
+        int next = 0; // first coordinate not transformed yet
+        for (int i = 0; i < count; ++i) {
+            for (int dim = Math.max(changed[i] - radius, next); dim <= changed[i] + radius && dim < dimension; ++dim) {
+                z[0][dim] = x[dim] - shift[dim] + c[dim];
+                z[1][dim] = previous[dim] - shift[dim] + c[dim];
+                next = dim + 1;
+            }
+        }
+
+        return function.getValue(z[1], previousValue, z[0], changed, count);
+    }
+
+    @Override
+    int getCouplingRadius() {
+        return function.getCouplingRadius();
+    }
+
+    @Override
+    public boolean isIncremental() {
+        return rotation == null && function.isIncremental();
+    }
+
+    /**
+     * Point z = R (x - o) + c of the inner function; buffer is used only with rotation.
+     */
+    private double[] transform(double[] x, double[] z, double[] buffer) {
+        double[] c = function.optimum;
+
+        if (rotation == null) {
+            for (int dim = 0; dim < dimension; ++dim) {
+                z[dim] = x[dim] - shift[dim] + c[dim];
+            }
+            return z;
+        }
+
+        for (int dim = 0; dim < dimension; ++dim) {
+            buffer[dim] = x[dim] - shift[dim];
+        }
+        rotation.apply(buffer, z);
+        for (int dim = 0; dim < dimension; ++dim) {
+            z[dim] += c[dim];
+        }
+        return z;
+    }
+}
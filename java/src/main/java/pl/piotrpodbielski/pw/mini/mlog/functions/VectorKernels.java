@@ -0,0 +1,39 @@
+package pl.piotrpodbielski.pw.mini.mlog.functions;
+
+/**
+ * Kernels of the Vector API, which are compiled separately (src/vector/java) and available only when the JVM runs with
+ * --add-modules jdk.incubator.vector on a Java version which has it. Otherwise, or when -Dmlog.vector=false is given,
+ * functions use their scalar loops.
+ */
+final class VectorKernels {
+    // Below this many coordinates a loop has too few full vectors to gain anything
+    static final int MIN_DIMENSION = 16;
+
+    private static final String IMPLEMENTATION = "pl.piotrpodbielski.pw.mini.mlog.functions.VectorApiKernels";
+    private static final IVectorKernels kernels = load();
+
+    VectorKernels() {
+        throw new RuntimeException("Cannot initialize instance of class VectorKernels.");
+    }
+
+    /**
+     * Kernels for a function of dimension, or null if it should use scalar loops.
+     */
+    static IVectorKernels forDimension(int dimension) {
+        return dimension >= MIN_DIMENSION ? kernels : null;
+    }
+
+    private static IVectorKernels load() {
+        if (!Boolean.parseBoolean(System.getProperty("mlog.vector", "true"))) {
+            return null;
+        }
+
+        try {
+            IVectorKernels loaded = (IVectorKernels) Class.forName(IMPLEMENTATION).getDeclaredConstructor().newInstance();
+            return loaded.lanes() > 1 ? loaded : null;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Not compiled in or module not enabled (classes of jdk.incubator.vector cannot be resolved)
+            return null;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package pl.piotrpodbielski.pw.mini.mlog.loggers;
+
+import org.json.JSONObject;
+import pl.piotrpodbielski.pw.mini.mlog.various.ConvergenceStatistics;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Logger writing only the summary curve of best values so far of all runs at every stride-th step; the result does not
+ * depend on whether runs were executed sequentially or in parallel shards.
+ */
+public class AggregatingOptimizationLogger implements IShardedOptimizationLogger {
+    private String fileName;
+    private String loggedAlgorithmName;
+    private Map<String, Object> attrs;
+    private int stride;
+    private double[] quantiles;
+    private boolean shard;
+
+    private ConvergenceStatistics statistics;
+    private final List<double[]> finishedCurves = new ArrayList<>(); // kept by shards until merged
+    private double[] curve = new double[1024];
+    private int curveLength = 0;
+    private int curveIteration = -1;
+
+    public AggregatingOptimizationLogger(String fileName, String loggedAlgorithmName, Map<String, Object> attrs, int stride, double[] quantiles) {
+        this(fileName, loggedAlgorithmName, attrs, stride, quantiles, false);
+    }
+
+    private AggregatingOptimizationLogger(String fileName, String loggedAlgorithmName, Map<String, Object> attrs, int stride, double[] quantiles, boolean shard) {
+        if (stride < 1) {
+            throw new Error("Stride has to be positive.");
+        }
+
+        this.fileName = fileName;
+        this.loggedAlgorithmName = loggedAlgorithmName;
+        this.attrs = attrs;
+        this.stride = stride;
+        this.quantiles = quantiles.clone();
+        this.shard = shard;
+    }
+
+    @Override
+    public void resetLogger() {
+        statistics = new ConvergenceStatistics(quantiles);
+        finishedCurves.clear();
+        curveLength = 0;
+        curveIteration = -1;
+
+        if (shard || fileName == null) {
+            return;
+        }
+
+        File file = new File(fileName);
+
+        if (file.exists()) {
+            if (!file.delete()) {
+                throw new RuntimeException("File couldn't be deleted.");
+            }
+        }
+
+        if (attrs != null) {
+            try (FileWriter fileWriter = new FileWriter(fileName.replace(".csv", ".json"), false); BufferedWriter bufferedWriter = new BufferedWriter(fileWriter)) {
+                bufferedWriter.write(new JSONObject(this.attrs).toString());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    public void logSamples(SampleBuffer samples) {
+        for (int i = 0; i < samples.size(); ++i) {
+            if (samples.getIteration(i) != curveIteration) {
+                finishCurve();
+                curveIteration = samples.getIteration(i);
+            }
+
+            int step = samples.getStep(i);
+            if (step % stride != 0) {
+                continue;
+            }
+
+            int point = step / stride;
+            if (point >= curve.length) {
+                curve = Arrays.copyOf(curve, Math.max(point + 1, 2 * curve.length));
+            }
+            curve[point] = samples.getBestValue(i);
+            curveLength = point + 1;
+        }
+    }
+
+    @Override
+    public void flushSamples() {
+        // Curve of a run is complete only when samples of the next run arrive or logger is closed
+    }
+
+    @Override
+    public void closeLogger() {
+        finishCurve();
+
+        if (shard || fileName == null || statistics == null) {
+            return;
+        }
+
+        try (FileWriter fileWriter = new FileWriter(fileName, false); BufferedWriter bufferedWriter = new BufferedWriter(fileWriter)) {
+            StringBuilder header = new StringBuilder("Step\tName\tCount\tMean\tStd\tMin\tMax");
+            for (double quantile : quantiles) {
+                header.append(String.format("\tQ%s", Double.toString(quantile * 100).replaceAll("\\.0$", "")));
+            }
+            bufferedWriter.write(header.toString());
+            bufferedWriter.newLine();
+
+            for (int point = 0; point < statistics.getPoints(); point++) {
+                StringBuilder line = new StringBuilder(String.format("%d\t%s\t%d\t%f\t%f\t%f\t%f", point * stride, loggedAlgorithmName,
+                        statistics.getCount(point), statistics.getMean(point), statistics.getStandardDeviation(point),
+                        statistics.getMin(point), statistics.getMax(point)));
+                for (int q = 0; q < quantiles.length; q++) {
+                    line.append(String.format("\t%f", statistics.getQuantile(point, q)));
+                }
+                bufferedWriter.write(line.toString());
+                bufferedWriter.newLine();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Summary couldn't be stored.", e);
+        }
+    }
+
+    @Override
+    public AggregatingOptimizationLogger createShard(int shard) {
+        return new AggregatingOptimizationLogger(null, loggedAlgorithmName, null, stride, quantiles, true);
+    }
+
+    @Override
+    public void mergeShards(List<IShardedOptimizationLogger> shards) {
+        finishCurve();
+
+        for (IShardedOptimizationLogger shardLogger : shards) {
+            AggregatingOptimizationLogger shard = (AggregatingOptimizationLogger) shardLogger;
+            shard.closeLogger();
+
+            for (double[] shardCurve : shard.finishedCurves) {
+                statistics.addCurve(shardCurve, shardCurve.length);
+            }
+            shard.finishedCurves.clear();
+        }
+    }
+
+    /**
+     * Summary of runs finished so far.
+     */
+    public ConvergenceStatistics getStatistics() {
+        return statistics;
+    }
+
+    private void finishCurve() {
+        if (curveLength == 0) {
+            return;
+        }
+
+        if (shard) {
+            finishedCurves.add(Arrays.copyOf(curve, curveLength));
+        }
+        else {
+            statistics.addCurve(curve, curveLength);
+        }
+        curveLength = 0;
+    }
+}
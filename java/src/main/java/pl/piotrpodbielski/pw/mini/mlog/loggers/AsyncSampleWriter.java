@@ -0,0 +1,212 @@
+package pl.piotrpodbielski.pw.mini.mlog.loggers;
+
+import pl.piotrpodbielski.pw.mini.mlog.enums.BackpressurePolicies;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands samples over from the optimization thread to one long-lived writer thread through a bounded ring; when it is
+ * full, the backpressure policy decides what happens. Only one thread at a time may append, flush and close.
+ */
+class AsyncSampleWriter {
+    /**
+     * Destination of samples, used only by the writer thread.
+     */
+    interface SampleSink {
+        void write(SampleBuffer samples) throws IOException;
+        void flush() throws IOException;
+        void close() throws IOException;
+    }
+
+    final private static int BUFFER_CAPACITY = 10001;
+    final private static int RING_SIZE = 8;
+    final private static int MAX_STRIDE = 1 << 20;
+
+    private final SampleSink sink;
+    private final BackpressurePolicies policy;
+    private final int bufferCapacity;
+    private final SampleBuffer[] ring;
+    private final AtomicLong head = new AtomicLong(); // next buffer to be stored by the writer
+    private final AtomicLong tail = new AtomicLong(); // next buffer to be published by the producer
+    private final Thread writerThread;
+    private volatile Thread blockedProducer;
+    private volatile boolean closed;
+    private volatile Exception failure;
+
+    private SampleBuffer current;
+    private int stride = 1;
+    private long strideCounter;
+    private long droppedSamples;
+
+    AsyncSampleWriter(String name, SampleSink sink, BackpressurePolicies policy) {
+        this(name, sink, policy, BUFFER_CAPACITY, RING_SIZE);
+    }
+
+    AsyncSampleWriter(String name, SampleSink sink, BackpressurePolicies policy, int bufferCapacity, int ringSize) {
+        if (bufferCapacity < 2 || ringSize < 1) {
+            throw new Error("Writer needs buffers of at least two samples and at least one slot in the ring.");
+        }
+
+        this.sink = sink;
+        this.policy = policy;
+        this.bufferCapacity = bufferCapacity;
+        this.ring = new SampleBuffer[ringSize];
+
+        writerThread = new Thread(this::write, name);
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    void append(SampleBuffer samples) {
+        if (current == null) {
+            current = new SampleBuffer(bufferCapacity, samples.getDimension());
+        }
+
+        for (int i = 0; i < samples.size(); ++i) {
+            if (current.isFull() && !publish(policy.equals(BackpressurePolicies.BLOCK))) {
+                if (policy.equals(BackpressurePolicies.DROP)) {
+                    droppedSamples++;
+                    continue;
+                }
+
+                // SAMPLE: thin out what is waiting and accept only every stride-th sample from now on
+                droppedSamples += current.size() / 2;
+                current.decimate();
+                if (stride < MAX_STRIDE) {
+                    stride *= 2;
+                }
+            }
+
+            if (stride > 1 && strideCounter++ % stride != 0) {
+                droppedSamples++;
+                continue;
+            }
+
+            current.append(samples, i);
+        }
+    }
+
+    /**
+     * Publishes samples appended so far without waiting for them to be stored (unless the policy is to block).
+     */
+    void flush() {
+        if (current != null && !current.isEmpty()) {
+            publish(policy.equals(BackpressurePolicies.BLOCK));
+        }
+    }
+
+    /**
+     * Stores all samples, stops the writer thread and closes the sink.
+     */
+    void close() {
+        if (current != null && !current.isEmpty()) {
+            publish(true);
+        }
+
+        closed = true;
+        LockSupport.unpark(writerThread);
+
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while storing samples.", e);
+        }
+
+        if (failure != null) {
+            throw new RuntimeException("Samples couldn't be stored.", failure);
+        }
+    }
+
+    long getDroppedSamples() {
+        return droppedSamples;
+    }
+
+    private boolean publish(boolean wait) {
+        long t = tail.get();
+
+        if (t - head.get() >= ring.length) {
+            if (!wait) {
+                return false;
+            }
+
+            blockedProducer = Thread.currentThread();
+            while (t - head.get() >= ring.length) {
+                LockSupport.park(this);
+            }
+            blockedProducer = null;
+        }
+
+        int slot = (int) (t % ring.length);
+        SampleBuffer free = ring[slot];
+        ring[slot] = current;
+        current = free != null ? free : new SampleBuffer(bufferCapacity, current.getDimension());
+        tail.set(t + 1);
+        LockSupport.unpark(writerThread);
+
+        stride = 1;
+        strideCounter = 0;
+        return true;
+    }
+
+    private void write() {
+        while (true) {
+            long h = head.get();
+            long t = tail.get();
+
+            if (h < t) {
+                for (; h < t; h++) {
+                    SampleBuffer samples = ring[(int) (h % ring.length)];
+                    store(samples);
+                    samples.clear();
+                    head.set(h + 1);
+
+                    Thread producer = blockedProducer;
+                    if (producer != null) {
+                        LockSupport.unpark(producer);
+                    }
+                }
+
+                try {
+                    if (failure == null) {
+                        sink.flush();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failure = e;
+                }
+            }
+            else if (closed) {
+                // Producer publishes before closing, so nothing can appear after this check
+                if (head.get() == tail.get()) {
+                    break;
+                }
+            }
+            else {
+                LockSupport.park(this);
+            }
+        }
+
+        try {
+            sink.close();
+        } catch (IOException | RuntimeException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+    }
+
+    private void store(SampleBuffer samples) {
+        // After a failure samples are still consumed, so that a blocked producer can carry on
+        if (failure != null) {
+            return;
+        }
+
+        try {
+            sink.write(samples);
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package pl.piotrpodbielski.pw.mini.mlog.loggers;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Converts logs of BinaryOptimizationLogger to the tab separated format of FileOptimizationLogger
+ * (and the accompanying .json file), so that the existing Python scripts can read them.
+ */
+public class BinaryLogConverter {
+    final private static int READ_BUFFER = 1 << 20;
+
+    private BinaryLogConverter() {
+        throw new Error("BinaryLogConverter class should not be instantiated.");
+    }
+
+    public static void convert(String binaryFileName, String csvFileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(new File(binaryFileName).toPath(), StandardOpenOption.READ);
+             FileWriter fileWriter = new FileWriter(csvFileName, false); BufferedWriter bufferedWriter = new BufferedWriter(fileWriter)) {
+            BinaryLogHeader header = BinaryLogHeader.read(channel);
+
+            if (!header.getAttrs().isEmpty()) {
+                try (FileWriter jsonWriter = new FileWriter(csvFileName.replace(".csv", ".json"), false)) {
+                    jsonWriter.write(header.getAttrs());
+                }
+            }
+
+            int dimension = header.getDimension();
+            if (dimension == 0) {
+                return;
+            }
+
+            bufferedWriter.write(FileOptimizationLogger.getHeaderLine(dimension));
+            bufferedWriter.newLine();
+
+            int recordSize = BinaryOptimizationLogger.getRecordSize(dimension);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(READ_BUFFER, recordSize)).order(ByteOrder.LITTLE_ENDIAN);
+            StringBuilder variables = new StringBuilder();
+
+            while (channel.read(buffer) >= 0 || buffer.position() > 0) {
+                buffer.flip();
+                if (buffer.remaining() < recordSize) {
+                    if (channel.position() == channel.size()) {
+                        throw new IOException("Binary log ends with an incomplete record.");
+                    }
+                    buffer.compact();
+                    continue;
+                }
+
+                while (buffer.remaining() >= recordSize) {
+                    int iteration = buffer.getInt();
+                    int step = buffer.getInt();
+                    double value = buffer.getDouble();
+                    double bestValue = buffer.getDouble();
+
+                    variables.setLength(0);
+                    for (int dim = 0; dim < dimension; dim++) {
+                        if (dim > 0) {
+                            variables.append('\t');
+                        }
+                        variables.append(buffer.getDouble());
+                    }
+
+                    bufferedWriter.write(FileOptimizationLogger.getSampleLine(header.getLoggedAlgorithmName(), iteration, step, value, bestValue, variables.toString()));
+                    bufferedWriter.newLine();
+                }
+                buffer.compact();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: BinaryLogConverter <log.bin> [log.csv]");
+            System.exit(1);
+        }
+
+        String csvFileName = args.length == 2 ? args[1] : args[0].replaceAll("\\.bin$", "") + ".csv";
+        convert(args[0], csvFileName);
+        System.out.println(csvFileName);
+    }
+}
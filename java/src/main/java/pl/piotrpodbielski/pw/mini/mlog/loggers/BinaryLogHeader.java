@@ -0,0 +1,77 @@
+package pl.piotrpodbielski.pw.mini.mlog.loggers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Header of a log written by BinaryOptimizationLogger.
+ */
+class BinaryLogHeader {
+    private final int dimension;
+    private final String loggedAlgorithmName;
+    private final String attrs;
+
+    private BinaryLogHeader(int dimension, String loggedAlgorithmName, String attrs) {
+        this.dimension = dimension;
+        this.loggedAlgorithmName = loggedAlgorithmName;
+        this.attrs = attrs;
+    }
+
+    /**
+     * Reads header from the current position of channel, leaving it at the first record.
+     */
+    static BinaryLogHeader read(ReadableByteChannel channel) throws IOException {
+        ByteBuffer fixed = readFully(channel, BinaryOptimizationLogger.MAGIC.length + 3 * Integer.BYTES);
+
+        byte[] magic = new byte[BinaryOptimizationLogger.MAGIC.length];
+        fixed.get(magic);
+        if (!Arrays.equals(magic, BinaryOptimizationLogger.MAGIC)) {
+            throw new IOException("Not a binary optimization log.");
+        }
+
+        int version = fixed.getInt();
+        if (version != BinaryOptimizationLogger.VERSION) {
+            throw new IOException(String.format("Unsupported binary log version %d.", version));
+        }
+
+        int dimension = fixed.getInt();
+        String name = readString(channel, fixed.getInt());
+        String attrs = readString(channel, readFully(channel, Integer.BYTES).getInt());
+
+        return new BinaryLogHeader(dimension, name, attrs);
+    }
+
+    private static String readString(ReadableByteChannel channel, int length) throws IOException {
+        return new String(readFully(channel, length).array(), StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer readFully(ReadableByteChannel channel, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Unexpected end of binary log header.");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    int getDimension() {
+        return dimension;
+    }
+
+    String getLoggedAlgorithmName() {
+        return loggedAlgorithmName;
+    }
+
+    /**
+     * JSON attributes of the experiment, empty for shards.
+     */
+    String getAttrs() {
+        return attrs;
+    }
+}
@@ -0,0 +1,245 @@
+package pl.piotrpodbielski.pw.mini.mlog.loggers;
+
+import org.json.JSONObject;
+import pl.piotrpodbielski.pw.mini.mlog.enums.BackpressurePolicies;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Logger writing samples as fixed-size little-endian records (header: magic, version, dimension, algorithm name, JSON
+ * attrs; record: int iteration, int step, double value, double best value, dimension doubles of x).
+ */
+public class BinaryOptimizationLogger implements IShardedOptimizationLogger {
+    final static byte[] MAGIC = "MLOGBIN1".getBytes(StandardCharsets.US_ASCII);
+    final static int VERSION = 1;
+    final private static int WRITE_BUFFER = 1 << 20;
+
+    private AsyncSampleWriter writer;
+    private boolean isOpen;
+    private boolean isHeaderWritten;
+
+    private String fileName;
+    private String loggedAlgorithmName;
+    private Map<String, Object> attrs;
+    private BackpressurePolicies backpressurePolicy;
+
+    public BinaryOptimizationLogger(String fileName, String loggedAlgorithmName, Map<String, Object> attrs) {
+        this(fileName, loggedAlgorithmName, attrs, BackpressurePolicies.BLOCK);
+    }
+
+    public BinaryOptimizationLogger(String fileName, String loggedAlgorithmName, Map<String, Object> attrs, BackpressurePolicies backpressurePolicy) {
+        this.fileName = fileName;
+        this.loggedAlgorithmName = loggedAlgorithmName;
+        this.attrs = attrs;
+        this.backpressurePolicy = backpressurePolicy;
+    }
+
+    @Override
+    public void resetLogger() {
+        closeWriter();
+
+        File file = new File(fileName);
+        if (file.exists()) {
+            if (!file.delete()) {
+                throw new RuntimeException("File couldn't be deleted.");
+            }
+        }
+
+        isOpen = true;
+        isHeaderWritten = false;
+        writer = new AsyncSampleWriter("Writer of " + fileName, new BinarySampleSink(), backpressurePolicy);
+    }
+
+    @Override
+    public void logSamples(SampleBuffer samples) {
+        if (writer == null) {
+            throw new IllegalStateException("Logger has to be reset before logging samples.");
+        }
+
+        writer.append(samples);
+    }
+
+    @Override
+    public void flushSamples() {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    @Override
+    public void closeLogger() {
+        if (!isOpen) {
+            return;
+        }
+
+        closeWriter();
+
+        // Log without samples still has to be readable
+        if (!isHeaderWritten) {
+            try (FileChannel channel = openForAppending()) {
+                writeFully(channel, getHeader(0));
+            } catch (IOException e) {
+                throw new RuntimeException("Header couldn't be stored.", e);
+            }
+            isHeaderWritten = true;
+        }
+
+        isOpen = false;
+    }
+
+    @Override
+    public BinaryOptimizationLogger createShard(int shard) {
+        return new BinaryOptimizationLogger(fileName.replace(".bin", String.format("-part%d.bin", shard)), loggedAlgorithmName, null, backpressurePolicy);
+    }
+
+    @Override
+    public void mergeShards(List<IShardedOptimizationLogger> shards) {
+        if (!isOpen) {
+            throw new IllegalStateException("Logger has to be reset before merging shards.");
+        }
+
+        closeWriter();
+
+        try (FileChannel channel = openForAppending()) {
+            for (IShardedOptimizationLogger shardLogger : shards) {
+                BinaryOptimizationLogger shard = (BinaryOptimizationLogger) shardLogger;
+                shard.closeLogger();
+
+                File shardFile = new File(shard.fileName);
+                if (!shardFile.exists()) {
+                    continue;
+                }
+
+                try (FileChannel shardChannel = FileChannel.open(shardFile.toPath(), StandardOpenOption.READ)) {
+                    BinaryLogHeader header = BinaryLogHeader.read(shardChannel);
+
+                    if (header.getDimension() > 0) {
+                        if (!isHeaderWritten) {
+                            writeFully(channel, getHeader(header.getDimension()));
+                            isHeaderWritten = true;
+                        }
+
+                        long position = shardChannel.position();
+                        long size = shardChannel.size();
+                        while (position < size) {
+                            position += shardChannel.transferTo(position, size - position, channel);
+                        }
+                    }
+                }
+
+                if (!shardFile.delete()) {
+                    throw new RuntimeException("File couldn't be deleted.");
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Shards couldn't be merged.", e);
+        }
+    }
+
+    static int getRecordSize(int dimension) {
+        return 2 * Integer.BYTES + (2 + dimension) * Double.BYTES;
+    }
+
+    private ByteBuffer getHeader(int dimension) {
+        byte[] name = loggedAlgorithmName.getBytes(StandardCharsets.UTF_8);
+        byte[] attributes = attrs != null ? new JSONObject(attrs).toString().getBytes(StandardCharsets.UTF_8) : new byte[0];
+
+        ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 4 * Integer.BYTES + name.length + attributes.length).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(dimension);
+        header.putInt(name.length);
+        header.put(name);
+        header.putInt(attributes.length);
+        header.put(attributes);
+        header.flip();
+
+        return header;
+    }
+
+    private FileChannel openForAppending() throws IOException {
+        return FileChannel.open(new File(fileName).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void closeWriter() {
+        if (writer == null) {
+            return;
+        }
+
+        writer.close();
+        if (writer.getDroppedSamples() > 0) {
+            System.err.println(String.format("%d samples were not logged to %s.", writer.getDroppedSamples(), fileName));
+        }
+        writer = null;
+    }
+
+    /**
+     * Encodes samples on the writer thread into a direct buffer, keeping the file open until the logger is closed.
+     */
+    private class BinarySampleSink implements AsyncSampleWriter.SampleSink {
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+        private FileChannel channel;
+
+        @Override
+        public void write(SampleBuffer samples) throws IOException {
+            int dimension = samples.getDimension();
+            if (channel == null) {
+                channel = openForAppending();
+            }
+
+            if (!isHeaderWritten) {
+                buffer.put(getHeader(dimension));
+                isHeaderWritten = true;
+            }
+
+            int recordSize = getRecordSize(dimension);
+            for (int i = 0; i < samples.size(); ++i) {
+                if (buffer.remaining() < recordSize) {
+                    flush();
+                }
+
+                buffer.putInt(samples.getIteration(i));
+                buffer.putInt(samples.getStep(i));
+                buffer.putDouble(samples.getValue(i));
+                buffer.putDouble(samples.getBestValue(i));
+                for (int dim = 0; dim < dimension; dim++) {
+                    buffer.putDouble(samples.getX(i, dim));
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (channel == null) {
+                return;
+            }
+
+            buffer.flip();
+            writeFully(channel, buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel != null) {
+                flush();
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+}
@@ -1,56 +1,57 @@
 package pl.piotrpodbielski.pw.mini.mlog.loggers;
 
 import org.json.JSONObject;
-import pl.piotrpodbielski.pw.mini.mlog.various.ValuedSample;
+import pl.piotrpodbielski.pw.mini.mlog.enums.BackpressurePolicies;
 
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-public class FileOptimizationLogger implements IOptimizationLogger {
-    final private Object addingLock = new Object();
-    final private Object storingLock = new Object();
-    final private static int SAMPLES_BUFFER = 10001;
+public class FileOptimizationLogger implements IShardedOptimizationLogger {
+    final private static int WRITE_BUFFER = 1 << 16;
 
-    private List<ValuedSample> samplesToStore;
-    private List<ValuedSample> samples;
+    private AsyncSampleWriter writer;
     private boolean isFirstSample;
 
     private String fileName;
     private String loggedAlgorithmName;
     private Map<String, Object> attrs;
+    private BackpressurePolicies backpressurePolicy;
 
     public FileOptimizationLogger(String fileName, String loggedAlgorithmName, Map<String, Object> attrs) {
+        this(fileName, loggedAlgorithmName, attrs, BackpressurePolicies.BLOCK);
+    }
+
+    public FileOptimizationLogger(String fileName, String loggedAlgorithmName, Map<String, Object> attrs, BackpressurePolicies backpressurePolicy) {
         this.fileName = fileName;
         this.loggedAlgorithmName = loggedAlgorithmName;
         this.attrs = attrs;
+        this.backpressurePolicy = backpressurePolicy;
     }
 
     @Override
     public void resetLogger() {
-        synchronized (addingLock)
-        {
-            samples = new ArrayList<ValuedSample>();
-        }
-        synchronized (storingLock)
-        {
-            isFirstSample = true;
+        closeLogger();
 
-            File file = new File(fileName);
+        isFirstSample = true;
 
-            if (file.exists()) {
-                if (!file.delete()) {
-                    throw new RuntimeException("File couldn't be deleted.");
-                }
+        File file = new File(fileName);
+
+        if (file.exists()) {
+            if (!file.delete()) {
+                throw new RuntimeException("File couldn't be deleted.");
             }
+        }
 
+        // Shards have no attrs, they are described by the file they are merged into
+        if (attrs != null) {
             file = new File(fileName.replace(".csv", ".json"));
 
             if (file.exists()) {
@@ -64,78 +65,140 @@ public class FileOptimizationLogger implements IOptimizationLogger {
             } catch (IOException e) {
                 e.printStackTrace();
             }
-
-            samplesToStore = new ArrayList<ValuedSample>();
         }
+
+        writer = new AsyncSampleWriter("Writer of " + fileName, new CsvSampleSink(), backpressurePolicy);
     }
 
     @Override
     public void flushSamples() {
-        synchronized (addingLock)
-        {
-            synchronized (storingLock)
-            {
-                samplesToStore.addAll(samples);
-                Thread storingThread = new Thread(new StoreSamples());
-                storingThread.start();
-            }
-            samples.clear();
+        if (writer != null) {
+            writer.flush();
         }
     }
 
     @Override
-    public void logSample(ValuedSample sample) {
-        synchronized (addingLock)
-        {
-            samples.add(sample);
+    public void closeLogger() {
+        if (writer == null) {
+            return;
         }
 
-        if (samples.size() >= SAMPLES_BUFFER)
-        {
-            flushSamples();
+        writer.close();
+        if (writer.getDroppedSamples() > 0) {
+            System.err.println(String.format("%d samples were not logged to %s.", writer.getDroppedSamples(), fileName));
         }
+        writer = null;
     }
 
-    private class StoreSamples implements Runnable {
-        @Override
-        public void run() {
-            synchronized (storingLock) {
-                File file = new File(fileName);
+    @Override
+    public FileOptimizationLogger createShard(int shard) {
+        return new FileOptimizationLogger(fileName.replace(".csv", String.format("-part%d.csv", shard)), loggedAlgorithmName, null, backpressurePolicy);
+    }
 
-                List<String> lines = new ArrayList<>();
+    @Override
+    public void mergeShards(List<IShardedOptimizationLogger> shards) {
+        closeLogger();
 
-                if (isFirstSample && !samplesToStore.isEmpty()) {
-                    String separatedVariablesList = IntStream.rangeClosed(1, samplesToStore.get(0).getX().length)
-                            .mapToObj(Integer::toString)
-                            .map(s -> "X" + s)
-                            .collect(Collectors.joining("\t"));
+        try (FileWriter fileWriter = new FileWriter(fileName, true); BufferedWriter bufferedWriter = new BufferedWriter(fileWriter)) {
+            for (IShardedOptimizationLogger shardLogger : shards) {
+                FileOptimizationLogger shard = (FileOptimizationLogger) shardLogger;
+                shard.closeLogger();
 
-                    lines.add(String.format("Iteration\tStep\tName\tValue\tBest value\t%s", separatedVariablesList));
-                    isFirstSample = false;
+                File shardFile = new File(shard.fileName);
+                if (!shardFile.exists()) {
+                    continue;
                 }
 
-                List<String> samplesLined = samplesToStore.parallelStream()
-                        .map(sample -> {
-                            String separatedVariablesList = Arrays.stream(sample.getX()).boxed()
-                                    .map(Object::toString)
-                                    .collect(Collectors.joining("\t"));
+                try (FileReader fileReader = new FileReader(shardFile); BufferedReader bufferedReader = new BufferedReader(fileReader)) {
+                    String line = bufferedReader.readLine();
+                    if (line != null && isFirstSample) {
+                        bufferedWriter.write(line);
+                        bufferedWriter.newLine();
+                        isFirstSample = false;
+                    }
 
-                            return String.format("%d\t%d\t%s\t%f\t%f\t%s", sample.getIteration(), sample.getStep(), loggedAlgorithmName, sample.getValue(), sample.getBestValue(), separatedVariablesList);
-                        }).collect(Collectors.toList());
+                    while ((line = bufferedReader.readLine()) != null) {
+                        bufferedWriter.write(line);
+                        bufferedWriter.newLine();
+                    }
+                }
 
-                lines.addAll(samplesLined);
+                if (!shardFile.delete()) {
+                    throw new RuntimeException("File couldn't be deleted.");
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
 
-                try (FileWriter fileWriter = new FileWriter(file, true); BufferedWriter bufferedWriter = new BufferedWriter(fileWriter)) {
+    @Override
+    public void logSamples(SampleBuffer samplesToLog) {
+        if (writer == null) {
+            throw new IllegalStateException("Logger has to be reset before logging samples.");
+        }
 
-                    for (String line : lines) {
-                        bufferedWriter.write(line);
-                        bufferedWriter.newLine();
+        writer.append(samplesToLog);
+    }
+
+    static String getHeaderLine(int dimension) {
+        String separatedVariablesList = IntStream.rangeClosed(1, dimension)
+                .mapToObj(Integer::toString)
+                .map(s -> "X" + s)
+                .collect(Collectors.joining("\t"));
+
+        return String.format("Iteration\tStep\tName\tValue\tBest value\t%s", separatedVariablesList);
+    }
+
+    static String getSampleLine(String loggedAlgorithmName, int iteration, int step, double value, double bestValue, String separatedVariablesList) {
+        return String.format("%d\t%d\t%s\t%f\t%f\t%s", iteration, step, loggedAlgorithmName, value, bestValue, separatedVariablesList);
+    }
+
+    /**
+     * Formats samples on the writer thread, keeping the file open until the logger is closed.
+     */
+    private class CsvSampleSink implements AsyncSampleWriter.SampleSink {
+        private BufferedWriter bufferedWriter;
+        private final StringBuilder variables = new StringBuilder();
+
+        @Override
+        public void write(SampleBuffer samples) throws IOException {
+            if (bufferedWriter == null) {
+                bufferedWriter = new BufferedWriter(new FileWriter(fileName, true), WRITE_BUFFER);
+            }
+
+            if (isFirstSample && !samples.isEmpty()) {
+                bufferedWriter.write(getHeaderLine(samples.getDimension()));
+                bufferedWriter.newLine();
+                isFirstSample = false;
+            }
+
+            for (int i = 0; i < samples.size(); ++i) {
+                variables.setLength(0);
+                for (int dim = 0; dim < samples.getDimension(); dim++) {
+                    if (dim > 0) {
+                        variables.append('\t');
                     }
-                } catch (IOException e) {
-                    e.printStackTrace();
+                    variables.append(samples.getX(i, dim));
                 }
 
-                samplesToStore.clear();
+                bufferedWriter.write(getSampleLine(loggedAlgorithmName, samples.getIteration(i), samples.getStep(i), samples.getValue(i), samples.getBestValue(i), variables.toString()));
+                bufferedWriter.newLine();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (bufferedWriter != null) {
+                bufferedWriter.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (bufferedWriter != null) {
+                bufferedWriter.close();
+                bufferedWriter = null;
             }
         }
     }
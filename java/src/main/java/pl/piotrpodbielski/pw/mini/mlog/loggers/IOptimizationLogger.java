@@ -1,9 +1,15 @@
 package pl.piotrpodbielski.pw.mini.mlog.loggers;
 
-import pl.piotrpodbielski.pw.mini.mlog.various.ValuedSample;
-
 public interface IOptimizationLogger {
     void flushSamples();
     void resetLogger();
-    void logSample(ValuedSample sample);
+    void logSamples(SampleBuffer samples);
+    void closeLogger();
+
+    /**
+     * Loggers returning false never receive samples, so runs may skip recording them altogether.
+     */
+    default boolean isRecordingSamples() {
+        return true;
+    }
 }
@@ -0,0 +1,18 @@
+package pl.piotrpodbielski.pw.mini.mlog.loggers;
+
+import java.util.List;
+
+/**
+ * Logger whose runs may be logged independently (e.g. in parallel) to shards and merged afterwards.
+ */
+public interface IShardedOptimizationLogger extends IOptimizationLogger {
+    /**
+     * Creates logger writing to a separate file, which can later be appended to this one with mergeShards.
+     */
+    IShardedOptimizationLogger createShard(int shard);
+
+    /**
+     * Appends samples of shards (created by this logger, in the given order) and removes shard files.
+     */
+    void mergeShards(List<IShardedOptimizationLogger> shards);
+}
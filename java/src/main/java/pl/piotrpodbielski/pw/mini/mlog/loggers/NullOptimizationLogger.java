@@ -1,8 +1,6 @@
 package pl.piotrpodbielski.pw.mini.mlog.loggers;
 
 
-import pl.piotrpodbielski.pw.mini.mlog.various.ValuedSample;
-
 public class NullOptimizationLogger implements IOptimizationLogger {
     @Override
     public void flushSamples() {
@@ -15,7 +13,17 @@ public class NullOptimizationLogger implements IOptimizationLogger {
     }
 
     @Override
-    public void logSample(ValuedSample sample) {
+    public void logSamples(SampleBuffer samples) {
+
+    }
+
+    @Override
+    public void closeLogger() {
+
+    }
 
+    @Override
+    public boolean isRecordingSamples() {
+        return false;
     }
 }
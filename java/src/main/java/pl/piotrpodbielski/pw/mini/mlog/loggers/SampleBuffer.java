@@ -0,0 +1,138 @@
+package pl.piotrpodbielski.pw.mini.mlog.loggers;
+
+/**
+ * Fixed-capacity ring buffer of samples stored as primitive columns (struct of arrays), so that logging a sample
+ * does not allocate. Coordinates of sample i (counting from the oldest one) are kept in one flat array.
+ */
+public class SampleBuffer {
+    private final int capacity;
+    private final int dimension;
+    private final int[] iterations;
+    private final int[] steps;
+    private final double[] values;
+    private final double[] bestValues;
+    private final double[] xs;
+    private int head = 0;
+    private int size = 0;
+
+    public SampleBuffer(int capacity, int dimension) {
+        this.capacity = capacity;
+        this.dimension = dimension;
+        this.iterations = new int[capacity];
+        this.steps = new int[capacity];
+        this.values = new double[capacity];
+        this.bestValues = new double[capacity];
+        this.xs = new double[capacity * dimension];
+    }
+
+    public void append(int iteration, int step, double value, double bestValue, double[] x) {
+        append(iteration, step, value, bestValue, x, 0);
+    }
+
+    /**
+     * Appends sample with coordinates x[offset, offset + dimension); the oldest sample is overwritten when full.
+     */
+    public void append(int iteration, int step, double value, double bestValue, double[] x, int offset) {
+        int slot = head + size;
+        if (slot >= capacity) {
+            slot -= capacity;
+        }
+
+        iterations[slot] = iteration;
+        steps[slot] = step;
+        values[slot] = value;
+        bestValues[slot] = bestValue;
+        System.arraycopy(x, offset, xs, slot * dimension, dimension);
+
+        if (size < capacity) {
+            size++;
+        } else if (++head == capacity) {
+            head = 0;
+        }
+    }
+
+    /**
+     * Appends sample i of other buffer.
+     */
+    public void append(SampleBuffer other, int i) {
+        int slot = other.slot(i);
+        append(other.iterations[slot], other.steps[slot], other.values[slot], other.bestValues[slot], other.xs, slot * other.dimension);
+    }
+
+    private int slot(int i) {
+        int slot = head + i;
+        return slot >= capacity ? slot - capacity : slot;
+    }
+
+    public int getIteration(int i) {
+        return iterations[slot(i)];
+    }
+
+    public int getStep(int i) {
+        return steps[slot(i)];
+    }
+
+    public double getValue(int i) {
+        return values[slot(i)];
+    }
+
+    public double getBestValue(int i) {
+        return bestValues[slot(i)];
+    }
+
+    public double getX(int i, int dim) {
+        return xs[slot(i) * dimension + dim];
+    }
+
+    /**
+     * Removes count oldest samples.
+     */
+    public void discard(int count) {
+        count = Math.min(count, size);
+        head = slot(count);
+        size -= count;
+    }
+
+    /**
+     * Keeps every second sample (the oldest one included), halving the buffer.
+     */
+    public void decimate() {
+        int kept = (size + 1) / 2;
+        for (int i = 1; i < kept; i++) {
+            int from = slot(2 * i);
+            int to = slot(i);
+
+            iterations[to] = iterations[from];
+            steps[to] = steps[from];
+            values[to] = values[from];
+            bestValues[to] = bestValues[from];
+            System.arraycopy(xs, from * dimension, xs, to * dimension, dimension);
+        }
+        size = kept;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+}
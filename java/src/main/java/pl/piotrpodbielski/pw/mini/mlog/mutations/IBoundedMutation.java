@@ -0,0 +1,28 @@
+package pl.piotrpodbielski.pw.mini.mlog.mutations;
+
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+
+/**
+ * Mutation of a coordinate which keeps it within [lower, upper] at the cost of exactly one draw, however close to a
+ * bound the coordinate is. Value being mutated has to be within bounds itself.
+ */
+public interface IBoundedMutation {
+    /**
+     * Normal(value, stdDev^2) mutation of value.
+     */
+    double mutate(RandomContext random, double value, double stdDev, double lower, double upper);
+
+    /**
+     * Uniform mutation of value from [value - radius, value + radius].
+     */
+    double mutateUniformly(RandomContext random, double value, double radius, double lower, double upper);
+
+    /**
+     * Normal mutation of every coordinate of x with stdDev, written into out.
+     */
+    default void mutate(RandomContext random, double[] x, double stdDev, double[] lower, double[] upper, double[] out) {
+        for (int dim = 0; dim < x.length; ++dim) {
+            out[dim] = mutate(random, x[dim], stdDev, lower[dim], upper[dim]);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package pl.piotrpodbielski.pw.mini.mlog.mutations;
+
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+
+/**
+ * Draws from the mutation distribution restricted to the bounds; a coordinate takes one draw whether it is mutated alone
+ * or with a whole point.
+ */
+public class TruncatingMutation implements IBoundedMutation {
+    @Override
+    public double mutate(RandomContext random, double value, double stdDev, double lower, double upper) {
+        double a = (lower - value) / stdDev;
+        double b = (upper - value) / stdDev;
+        if (a <= -StandardNormal.RANGE && b >= StandardNormal.RANGE) {
+            return value + stdDev * random.nextGaussian();
+        }
+
+        return truncated(random, value, stdDev, lower, upper, a, b);
+    }
+
+    @Override
+    public double mutateUniformly(RandomContext random, double value, double radius, double lower, double upper) {
+        double from = Math.max(value - radius, lower);
+        double to = Math.min(value + radius, upper);
+
+        return from + (to - from) * random.nextDouble();
+    }
+
+    private static double truncated(RandomContext random, double value, double stdDev, double lower, double upper, double a, double b) {
+        if (!(stdDev > 0.) || lower >= upper) {
+            return Math.min(Math.max(value, lower), upper);
+        }
+
+        double from = StandardNormal.cdf(a);
+        double to = StandardNormal.cdf(b);
+        double z = StandardNormal.quantile(from + (to - from) * random.nextDouble());
+
+        // Rounding might put it a hair outside
+        return Math.min(Math.max(value + stdDev * z, lower), upper);
+    }
+}
@@ -0,0 +1,41 @@
+package pl.piotrpodbielski.pw.mini.mlog.mutations;
+
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+
+/**
+ * Mutated value which left the bounds enters again from the other side, as if the search space was a torus.
+ */
+public class WrappingMutation implements IBoundedMutation {
+    @Override
+    public double mutate(RandomContext random, double value, double stdDev, double lower, double upper) {
+        return wrap(value + stdDev * random.nextGaussian(), lower, upper);
+    }
+
+    @Override
+    public double mutateUniformly(RandomContext random, double value, double radius, double lower, double upper) {
+        return wrap(value - radius + 2. * radius * random.nextDouble(), lower, upper);
+    }
+
+    @Override
+    public void mutate(RandomContext random, double[] x, double stdDev, double[] lower, double[] upper, double[] out) {
+        random.fillGaussian(out, x, stdDev);
+        for (int dim = 0; dim < out.length; ++dim) {
+            out[dim] = wrap(out[dim], lower[dim], upper[dim]);
+        }
+    }
+
+    static double wrap(double value, double lower, double upper) {
+        if (value >= lower && value <= upper) {
+            return value;
+        }
+
+        double width = upper - lower;
+        if (!(width > 0.)) {
+            return lower;
+        }
+
+        double offset = value - lower;
+        offset -= width * Math.floor(offset / width);
+        return Math.min(Math.max(lower + offset, lower), upper);
+    }
+}
@@ -0,0 +1,77 @@
+package pl.piotrpodbielski.pw.mini.mlog.samplers;
+
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+
+/**
+ * Halton sequence (radical inverses of the point index in consecutive prime bases), scrambled with a random
+ * permutation of digits per dimension, applied also to the infinitely many leading zeros of the index.
+ * Points are computed from their index, so skipping is free.
+ */
+public class HaltonSampler implements ISampler {
+    private final int[] bases;
+    private final int[][] permutations;
+    private long index = 0;
+
+    public HaltonSampler(int dimension, RandomContext random) {
+        bases = new int[dimension];
+        permutations = new int[dimension][];
+
+        for (int dim = 0, candidate = 2; dim < dimension; candidate++) {
+            if (isPrime(candidate)) {
+                bases[dim++] = candidate;
+            }
+        }
+
+        for (int dim = 0; dim < dimension; dim++) {
+            int[] permutation = new int[bases[dim]];
+            for (int i = 0; i < permutation.length; i++) {
+                permutation[i] = i;
+            }
+            for (int i = permutation.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = permutation[i];
+                permutation[i] = permutation[j];
+                permutation[j] = swap;
+            }
+            permutations[dim] = permutation;
+        }
+    }
+
+    @Override
+    public void next(double[] x) {
+        for (int dim = 0; dim < x.length; dim++) {
+            x[dim] = radicalInverse(dim, index);
+        }
+        index++;
+    }
+
+    @Override
+    public void skip(long count) {
+        index += count;
+    }
+
+    private double radicalInverse(int dim, long n) {
+        int base = bases[dim];
+        int[] permutation = permutations[dim];
+
+        double value = 0.;
+        double factor = 1. / base;
+        for (; n > 0; n /= base) {
+            value += permutation[(int) (n % base)] * factor;
+            factor /= base;
+        }
+
+        // Permuted zeros left of the last digit
+        value += permutation[0] * factor * base / (base - 1);
+        return Math.min(value, Math.nextDown(1.));
+    }
+
+    private static boolean isPrime(int n) {
+        for (int d = 2; d * d <= n; d++) {
+            if (n % d == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
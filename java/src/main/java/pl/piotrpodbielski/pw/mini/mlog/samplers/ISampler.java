@@ -0,0 +1,16 @@
+package pl.piotrpodbielski.pw.mini.mlog.samplers;
+
+/**
+ * Sequence of points of the unit cube [0, 1)^dimension.
+ */
+public interface ISampler {
+    /**
+     * Fills x with the next point of the sequence.
+     */
+    void next(double[] x);
+
+    /**
+     * Skips count points, so that workers can take disjoint parts of one sequence.
+     */
+    void skip(long count);
+}
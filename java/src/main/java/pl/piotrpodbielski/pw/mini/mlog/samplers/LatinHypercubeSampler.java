@@ -0,0 +1,69 @@
+package pl.piotrpodbielski.pw.mini.mlog.samplers;
+
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+
+/**
+ * Latin hypercube of the given number of points, every stratum of every dimension holding exactly one of them; points
+ * beyond that number form further, independent hypercubes.
+ */
+public class LatinHypercubeSampler implements ISampler {
+    final private static int ROUNDS = 4;
+
+    private final long points;
+    private final int halfBits;
+    private final long halfMask;
+    private final long permutationSeed;
+    private final long offsetSeed;
+    private long index = 0;
+
+    public LatinHypercubeSampler(long points, RandomContext random) {
+        this.points = Math.max(points, 1);
+
+        int bits = 64 - Long.numberOfLeadingZeros(this.points - 1);
+        this.halfBits = Math.max(1, (bits + 1) / 2);
+        this.halfMask = (1L << halfBits) - 1;
+        this.permutationSeed = random.nextLong();
+        this.offsetSeed = random.nextLong();
+    }
+
+    @Override
+    public void next(double[] x) {
+        long block = index / points;
+        long position = index % points;
+
+        for (int dim = 0; dim < x.length; dim++) {
+            long key = RandomContext.mix64(permutationSeed ^ RandomContext.mix64(block * x.length + dim));
+            long stratum = permute(position, key);
+            double offset = (RandomContext.mix64(offsetSeed ^ RandomContext.mix64(index * x.length + dim)) >>> 11) * 0x1.0p-53;
+            x[dim] = Math.min((stratum + offset) / points, Math.nextDown(1.));
+        }
+        index++;
+    }
+
+    @Override
+    public void skip(long count) {
+        index += count;
+    }
+
+    /**
+     * Bijection of [0, points), encrypting until the value falls into the range again.
+     */
+    private long permute(long value, long key) {
+        do {
+            value = encrypt(value, key);
+        } while (value >= points);
+        return value;
+    }
+
+    private long encrypt(long value, long key) {
+        long left = value >>> halfBits;
+        long right = value & halfMask;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long mixed = (left ^ RandomContext.mix64(right ^ (key + round))) & halfMask;
+            left = right;
+            right = mixed;
+        }
+        return (left << halfBits) | right;
+    }
+}
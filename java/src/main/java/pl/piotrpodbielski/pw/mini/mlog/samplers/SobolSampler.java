@@ -0,0 +1,133 @@
+package pl.piotrpodbielski.pw.mini.mlog.samplers;
+
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+
+/**
+ * Sobol sequence (direction numbers of Joe & Kuo, new-joe-kuo-6.21201) with 32 bits per coordinate, scrambled with
+ * a random linear matrix and a random digital shift (Matousek), so that every run gets a different sequence which
+ * keeps its equidistribution. Points are generated in Gray code order; skipping computes the point directly.
+ */
+public class SobolSampler implements ISampler {
+    final private static int BITS = 32;
+    final private static long MAX_POINTS = 1L << BITS;
+
+    // Degree s, coefficients a and initial numbers m of primitive polynomials of dimensions 2, 3, ...
+    final private static int[] DEGREES = {1, 2, 3, 3, 4, 4, 5, 5, 5, 5, 5, 5, 6, 6, 6, 6, 6, 6, 7, 7};
+    final private static int[] COEFFICIENTS = {0, 1, 1, 2, 1, 4, 2, 4, 7, 11, 13, 14, 1, 13, 16, 19, 22, 25, 1, 4};
+    final private static int[][] INITIAL_NUMBERS = {
+            {1}, {1, 3}, {1, 3, 1}, {1, 1, 1}, {1, 1, 3, 3}, {1, 3, 5, 13}, {1, 1, 5, 5, 17}, {1, 1, 5, 5, 5},
+            {1, 1, 7, 11, 19}, {1, 1, 5, 1, 1}, {1, 1, 1, 3, 11}, {1, 3, 5, 5, 31}, {1, 3, 3, 9, 7, 49},
+            {1, 1, 1, 15, 21, 21}, {1, 3, 1, 13, 27, 49}, {1, 1, 1, 15, 7, 5}, {1, 3, 1, 15, 13, 25},
+            {1, 1, 5, 5, 19, 61}, {1, 3, 7, 11, 23, 15, 103}, {1, 3, 7, 13, 13, 15, 69}};
+
+    final public static int MAX_DIMENSION = DEGREES.length + 1;
+
+    private final int[][] directions; // [dimension][bit]
+    private final int[] shift;
+    private final int[] point;
+    private long index = 0;
+
+    public SobolSampler(int dimension, RandomContext random) {
+        if (dimension < 1 || dimension > MAX_DIMENSION) {
+            throw new Error(String.format("Sobol sequence is available for 1 to %d dimensions.", MAX_DIMENSION));
+        }
+
+        directions = new int[dimension][];
+        shift = new int[dimension];
+        point = new int[dimension];
+
+        for (int dim = 0; dim < dimension; dim++) {
+            directions[dim] = scramble(getDirections(dim), random);
+            shift[dim] = random.nextInt();
+            point[dim] = 0;
+        }
+    }
+
+    @Override
+    public void next(double[] x) {
+        if (index >= MAX_POINTS) {
+            throw new Error("Sobol sequence is exhausted.");
+        }
+
+        for (int dim = 0; dim < x.length; dim++) {
+            x[dim] = ((point[dim] ^ shift[dim]) & 0xFFFFFFFFL) * 0x1.0p-32;
+        }
+
+        // Next point in Gray code order differs by the direction number of the lowest zero bit of index
+        int bit = Long.numberOfTrailingZeros(~index);
+        index++;
+        if (bit < BITS) {
+            for (int dim = 0; dim < point.length; dim++) {
+                point[dim] ^= directions[dim][bit];
+            }
+        }
+    }
+
+    @Override
+    public void skip(long count) {
+        index = Math.min(index + count, MAX_POINTS);
+
+        long gray = index ^ (index >>> 1);
+        for (int dim = 0; dim < point.length; dim++) {
+            int value = 0;
+            for (int bit = 0; bit < BITS; bit++) {
+                if ((gray >>> bit & 1L) != 0) {
+                    value ^= directions[dim][bit];
+                }
+            }
+            point[dim] = value;
+        }
+    }
+
+    private static int[] getDirections(int dim) {
+        int[] v = new int[BITS];
+
+        if (dim == 0) {
+            for (int j = 0; j < BITS; j++) {
+                v[j] = 1 << (BITS - 1 - j);
+            }
+            return v;
+        }
+
+        int s = DEGREES[dim - 1];
+        int a = COEFFICIENTS[dim - 1];
+        int[] m = INITIAL_NUMBERS[dim - 1];
+
+        for (int j = 0; j < BITS; j++) {
+            if (j < s) {
+                v[j] = m[j] << (BITS - 1 - j);
+                continue;
+            }
+
+            v[j] = v[j - s] ^ (v[j - s] >>> s);
+            for (int k = 1; k < s; k++) {
+                if ((a >>> (s - 1 - k) & 1) != 0) {
+                    v[j] ^= v[j - k];
+                }
+            }
+        }
+        return v;
+    }
+
+    /**
+     * Multiplies direction numbers (as columns of bits, the most significant first) by a random lower triangular
+     * matrix with ones on the diagonal.
+     */
+    private static int[] scramble(int[] v, RandomContext random) {
+        int[] rows = new int[BITS];
+        for (int r = 0; r < BITS; r++) {
+            int above = r == 0 ? 0 : -1 << (BITS - r);
+            rows[r] = (1 << (BITS - 1 - r)) | (random.nextInt() & above);
+        }
+
+        int[] scrambled = new int[BITS];
+        for (int j = 0; j < BITS; j++) {
+            int value = 0;
+            for (int r = 0; r < BITS; r++) {
+                value |= (Integer.bitCount(rows[r] & v[j]) & 1) << (BITS - 1 - r);
+            }
+            scrambled[j] = value;
+        }
+        return scrambled;
+    }
+}
@@ -0,0 +1,34 @@
+package pl.piotrpodbielski.pw.mini.mlog.samplers;
+
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+
+/**
+ * Independent uniform points drawn from the given random context (which may be shared with the caller).
+ */
+public class UniformSampler implements ISampler {
+    private final int dimension;
+    private final RandomContext random;
+
+    public UniformSampler(int dimension, RandomContext random) {
+        this.dimension = dimension;
+        this.random = random;
+    }
+
+    @Override
+    public void next(double[] x) {
+        for (int i = 0; i < x.length; ++i) {
+            x[i] = random.nextDouble();
+        }
+    }
+
+    /**
+     * Draws and discards the skipped points, so it takes time proportional to count; parallel workers should rather
+     * use forked random contexts.
+     */
+    @Override
+    public void skip(long count) {
+        for (long i = 0; i < count * dimension; ++i) {
+            random.nextLong();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package pl.piotrpodbielski.pw.mini.mlog.tuning;
+
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+
+import java.util.List;
+
+/**
+ * Hyperparameter given to MLOG as a command line option, with its prior distribution (as in hyperopt spaces of
+ * common.py). Values are kept as doubles: choices by their index, integers rounded.
+ */
+public class Parameter {
+    public enum Type {
+        UNIFORM, // hp.uniform
+        UNIFORM_INT, // hp.uniformint
+        QUNIFORM, // hp.quniform
+        FLAG // hp.choice([True, False]) of an option without value, kept as index of the choice
+    }
+
+    private final String option;
+    private final Type type;
+    private final double low;
+    private final double high;
+    private final double q;
+
+    private Parameter(String option, Type type, double low, double high, double q) {
+        if (high < low) {
+            throw new Error("Upper bound of parameter can't be lower than the lower one.");
+        }
+
+        this.option = option;
+        this.type = type;
+        this.low = low;
+        this.high = high;
+        this.q = q;
+    }
+
+    public static Parameter uniform(String option, double low, double high) {
+        return new Parameter(option, Type.UNIFORM, low, high, 0.);
+    }
+
+    public static Parameter uniformInt(String option, int low, int high) {
+        return new Parameter(option, Type.UNIFORM_INT, low, high, 1.);
+    }
+
+    public static Parameter quniform(String option, double low, double high, double q) {
+        return new Parameter(option, Type.QUNIFORM, low, high, q);
+    }
+
+    public static Parameter flag(String option) {
+        return new Parameter(option, Type.FLAG, 0., 1., 1.);
+    }
+
+    public double sample(RandomContext random) {
+        if (type.equals(Type.FLAG)) {
+            return random.nextInt(2);
+        }
+        if (type.equals(Type.UNIFORM_INT)) {
+            return low + random.nextInt((int) (high - low) + 1);
+        }
+        return normalize(low + (high - low) * random.nextDouble());
+    }
+
+    /**
+     * Nearest valid value: within bounds, rounded or quantized if needed.
+     */
+    public double normalize(double value) {
+        value = Math.min(Math.max(value, low), high);
+
+        if (type.equals(Type.QUNIFORM)) {
+            return Math.round(value / q) * q;
+        }
+        if (!type.equals(Type.UNIFORM)) {
+            return Math.round(value);
+        }
+        return value;
+    }
+
+    /**
+     * Appends option with value to MLOG command line; flag is given only when chosen.
+     */
+    public void addArguments(double value, List<String> arguments) {
+        if (type.equals(Type.FLAG)) {
+            if (value == 0.) {
+                arguments.add(option);
+            }
+            return;
+        }
+
+        // Negative numbers would be taken for options otherwise
+        arguments.add(String.format("%s=%s", option, format(value)));
+    }
+
+    public Object getValue(double value) {
+        if (type.equals(Type.FLAG)) {
+            return value == 0.;
+        }
+        if (type.equals(Type.UNIFORM_INT) || (type.equals(Type.QUNIFORM) && q == Math.rint(q))) {
+            return (long) value;
+        }
+        return value;
+    }
+
+    private String format(double value) {
+        return getValue(value).toString();
+    }
+
+    public boolean isDiscrete() {
+        return type.equals(Type.FLAG);
+    }
+
+    public String getOption() {
+        return option;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public double getLow() {
+        return low;
+    }
+
+    public double getHigh() {
+        return high;
+    }
+}
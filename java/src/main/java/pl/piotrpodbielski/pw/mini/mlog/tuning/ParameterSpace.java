@@ -0,0 +1,123 @@
+package pl.piotrpodbielski.pw.mini.mlog.tuning;
+
+import pl.piotrpodbielski.pw.mini.mlog.enums.Algorithms;
+import pl.piotrpodbielski.pw.mini.mlog.enums.Functions;
+import pl.piotrpodbielski.pw.mini.mlog.various.Experiments;
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tuned hyperparameters of an algorithm, the same as get_opt_space of python/common.py.
+ */
+public class ParameterSpace {
+    final private static int TRIALS = 350;
+
+    private final List<Parameter> parameters;
+    private final int trials;
+
+    public ParameterSpace(List<Parameter> parameters, int trials) {
+        this.parameters = Collections.unmodifiableList(new ArrayList<>(parameters));
+        this.trials = trials;
+    }
+
+    /**
+     * Space of algorithm on function, where evaluations is the budget of a run (STEPS of common.py).
+     */
+    public static ParameterSpace get(Algorithms algorithm, Functions function, int evaluations) {
+        double boundary = Experiments.getQualityFunction(function, 2).getUpperBoundary()[0];
+
+        if (algorithm.equals(Algorithms.HILL_CLIMBING)) {
+            return new ParameterSpace(Arrays.asList(
+                    Parameter.uniformInt("--failures-to-reset", 1, 50),
+                    Parameter.uniform("--step", 0., boundary / 3),
+                    Parameter.flag("--reset-resets-failures-counter")), TRIALS);
+        }
+        else if (algorithm.equals(Algorithms.HILL_CLIMBING_AD_SS)) {
+            return new ParameterSpace(Collections.singletonList(
+                    Parameter.uniformInt("--number-of-particles", 5, 40)), 50);
+        }
+        else if (algorithm.equals(Algorithms.BIT_SWITCH_HILL_CLIMBING)) {
+            return new ParameterSpace(Arrays.asList(
+                    Parameter.uniformInt("--failures-to-reset", 1, 50),
+                    Parameter.uniformInt("--step", 1, 8),
+                    Parameter.flag("--reset-resets-failures-counter"),
+                    Parameter.uniformInt("--no-of-bits-for-grid-mapping-per-dim", 1, 32)), TRIALS);
+        }
+        else if (algorithm.equals(Algorithms.BIT_SWITCH_HILL_CLIMBING_VNS)) {
+            return new ParameterSpace(Arrays.asList(
+                    Parameter.uniformInt("--no-of-bits-for-grid-mapping-per-dim", 1, 32),
+                    Parameter.quniform("--neighbour-looks", 50, evaluations, 50)), TRIALS);
+        }
+        else if (algorithm.equals(Algorithms.EVOLUTION_STRATEGY)) {
+            return new ParameterSpace(Arrays.asList(
+                    Parameter.quniform("--improvements-loop-iteration", 50, evaluations, 50),
+                    Parameter.uniform("--step", 0., boundary / 3),
+                    Parameter.uniform("--step-mutation-coefficient", 0.85, 0.99)), TRIALS);
+        }
+        else if (algorithm.equals(Algorithms.BIOLOGICAL_EVOLUTION)) {
+            return new ParameterSpace(Arrays.asList(
+                    Parameter.uniform("--step", 0., boundary / 3),
+                    Parameter.uniformInt("--population", 5, 40),
+                    Parameter.uniformInt("--crossover-population", 5, 20),
+                    Parameter.quniform("--mutation-probability", 0., 1., .1)), TRIALS);
+        }
+        else if (algorithm.equals(Algorithms.PARTICLE_SWARM_OPTIMIZATION)) {
+            return new ParameterSpace(Arrays.asList(
+                    Parameter.uniformInt("--number-of-particles", 5, 40),
+                    Parameter.uniform("--omega", -0.1, 0.837),
+                    Parameter.uniform("--c-1", 0.875, 2.0412),
+                    Parameter.uniform("--c-2", 0.9477, 2.85)), TRIALS);
+        }
+        else if (algorithm.equals(Algorithms.DIFFERENTIAL_EVOLUTION)) {
+            return new ParameterSpace(Arrays.asList(
+                    Parameter.uniformInt("--population", 5, 40),
+                    Parameter.uniform("--f", 0., 1.)), TRIALS);
+        }
+        throw new Error(String.format("%s has no hyperparameters to tune.", algorithm.getShortName()));
+    }
+
+    public double[] sample(RandomContext random) {
+        double[] configuration = new double[parameters.size()];
+        for (int i = 0; i < configuration.length; i++) {
+            configuration[i] = parameters.get(i).sample(random);
+        }
+        return configuration;
+    }
+
+    public List<String> getArguments(double[] configuration) {
+        List<String> arguments = new ArrayList<>();
+        for (int i = 0; i < configuration.length; i++) {
+            parameters.get(i).addArguments(configuration[i], arguments);
+        }
+        return arguments;
+    }
+
+    public Map<String, Object> getValues(double[] configuration) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int i = 0; i < configuration.length; i++) {
+            values.put(parameters.get(i).getOption(), parameters.get(i).getValue(configuration[i]));
+        }
+        return values;
+    }
+
+    public List<Parameter> getParameters() {
+        return parameters;
+    }
+
+    public int size() {
+        return parameters.size();
+    }
+
+    /**
+     * Number of trials hypertune.py runs by default for this space.
+     */
+    public int getTrials() {
+        return trials;
+    }
+}
@@ -0,0 +1,21 @@
+package pl.piotrpodbielski.pw.mini.mlog.tuning;
+
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+
+public class RandomSearch implements SearchStrategy {
+    private final ParameterSpace space;
+
+    public RandomSearch(ParameterSpace space) {
+        this.space = space;
+    }
+
+    @Override
+    public double[] suggest(RandomContext random) {
+        return space.sample(random);
+    }
+
+    @Override
+    public void observe(double[] configuration, int budget, double loss) {
+
+    }
+}
@@ -0,0 +1,15 @@
+package pl.piotrpodbielski.pw.mini.mlog.tuning;
+
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+
+/**
+ * Proposes configurations of a parameter space, learning from losses of the evaluated ones.
+ */
+public interface SearchStrategy {
+    double[] suggest(RandomContext random);
+
+    /**
+     * Loss of configuration evaluated with runs stopped after budget steps.
+     */
+    void observe(double[] configuration, int budget, double loss);
+}
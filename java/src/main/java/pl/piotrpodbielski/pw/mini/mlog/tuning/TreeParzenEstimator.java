@@ -0,0 +1,168 @@
+package pl.piotrpodbielski.pw.mini.mlog.tuning;
+
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Lightweight Tree-structured Parzen Estimator (Bergstra et al.), as used by hyperopt.tpe.suggest. Only observations
+ * of the highest budget having enough of them are used, so that losses of stopped runs are compared with each other.
+ */
+public class TreeParzenEstimator implements SearchStrategy {
+    final private static int STARTUP_TRIALS = 10;
+    final private static double GAMMA = 0.25;
+    final private static int CANDIDATES = 24;
+    final private static double MIN_BANDWIDTH = 0.01;
+
+    private static class Observation {
+        final double[] configuration;
+        final int budget;
+        final double loss;
+
+        Observation(double[] configuration, int budget, double loss) {
+            this.configuration = configuration;
+            this.budget = budget;
+            this.loss = loss;
+        }
+    }
+
+    private final ParameterSpace space;
+    private final List<Observation> observations = new ArrayList<>();
+
+    public TreeParzenEstimator(ParameterSpace space) {
+        this.space = space;
+    }
+
+    @Override
+    public double[] suggest(RandomContext random) {
+        List<Observation> model = getModelObservations();
+        if (model.isEmpty()) {
+            return space.sample(random);
+        }
+
+        model.sort(Comparator.comparingDouble(o -> o.loss));
+        int good = Math.max(1, (int) Math.ceil(GAMMA * model.size()));
+        List<Observation> below = model.subList(0, good);
+        List<Observation> above = model.subList(good, model.size());
+
+        List<Parameter> parameters = space.getParameters();
+        double[] best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+
+        for (int c = 0; c < CANDIDATES; c++) {
+            double[] candidate = new double[parameters.size()];
+            double score = 0.;
+
+            for (int p = 0; p < parameters.size(); p++) {
+                Parameter parameter = parameters.get(p);
+                candidate[p] = sample(parameter, p, below, random);
+                score += Math.log(density(parameter, p, below, candidate[p])) - Math.log(density(parameter, p, above, candidate[p]));
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                best = candidate;
+            }
+        }
+
+        return best;
+    }
+
+    @Override
+    public void observe(double[] configuration, int budget, double loss) {
+        observations.add(new Observation(configuration.clone(), budget, Double.isNaN(loss) ? Double.MAX_VALUE : loss));
+    }
+
+    private List<Observation> getModelObservations() {
+        int budget = -1;
+        for (Observation observation : observations) {
+            if (observation.budget > budget) {
+                budget = observation.budget;
+            }
+        }
+
+        // Highest budget with at least STARTUP_TRIALS observations
+        while (budget >= 0) {
+            int count = 0;
+            int lower = -1;
+            for (Observation observation : observations) {
+                if (observation.budget == budget) {
+                    count++;
+                }
+                else if (observation.budget < budget && observation.budget > lower) {
+                    lower = observation.budget;
+                }
+            }
+            if (count >= STARTUP_TRIALS) {
+                break;
+            }
+            budget = lower;
+        }
+
+        List<Observation> model = new ArrayList<>();
+        if (budget < 0) {
+            return model;
+        }
+        for (Observation observation : observations) {
+            if (observation.budget == budget) {
+                model.add(observation);
+            }
+        }
+        return model;
+    }
+
+    private double sample(Parameter parameter, int p, List<Observation> group, RandomContext random) {
+        if (parameter.isDiscrete()) {
+            double[] weights = new double[2];
+            for (Observation observation : group) {
+                weights[(int) observation.configuration[p]]++;
+            }
+            return random.nextDouble() * (weights[0] + weights[1] + 2.) < weights[0] + 1. ? 0. : 1.;
+        }
+
+        // Prior is one more component of the mixture
+        int component = random.nextInt(group.size() + 1);
+        if (component == group.size()) {
+            return parameter.sample(random);
+        }
+
+        double range = parameter.getHigh() - parameter.getLow();
+        double mean = group.get(component).configuration[p];
+        return parameter.normalize(mean + getBandwidth(group.size()) * range * random.nextGaussian());
+    }
+
+    private double density(Parameter parameter, int p, List<Observation> group, double value) {
+        if (parameter.isDiscrete()) {
+            double count = 0.;
+            for (Observation observation : group) {
+                if (observation.configuration[p] == value) {
+                    count++;
+                }
+            }
+            return (count + 1.) / (group.size() + 2.);
+        }
+
+        double range = parameter.getHigh() - parameter.getLow();
+        if (range == 0.) {
+            return 1.;
+        }
+
+        double x = (value - parameter.getLow()) / range;
+        double sigma = getBandwidth(group.size());
+        double sum = 1.; // uniform prior on [0, 1]
+        for (Observation observation : group) {
+            double z = (x - (observation.configuration[p] - parameter.getLow()) / range) / sigma;
+            sum += Math.exp(-0.5 * z * z) / (sigma * Math.sqrt(2. * Math.PI));
+        }
+        return sum / (group.size() + 1.);
+    }
+
+    /**
+     * Width of the Gaussians relative to the range of parameter, shrinking with the number of observations.
+     */
+    private static double getBandwidth(int observations) {
+        return Math.max(MIN_BANDWIDTH, 0.5 * Math.pow(observations + 1, -0.2));
+    }
+}
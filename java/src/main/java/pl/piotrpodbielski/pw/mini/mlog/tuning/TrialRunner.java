@@ -0,0 +1,134 @@
+package pl.piotrpodbielski.pw.mini.mlog.tuning;
+
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+import net.sourceforge.argparse4j.inf.Namespace;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import pl.piotrpodbielski.pw.mini.mlog.enums.Algorithms;
+import pl.piotrpodbielski.pw.mini.mlog.loggers.AggregatingOptimizationLogger;
+import pl.piotrpodbielski.pw.mini.mlog.various.ConvergenceStatistics;
+import pl.piotrpodbielski.pw.mini.mlog.various.Experiments;
+import pl.piotrpodbielski.pw.mini.mlog.various.NotImplementedException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs all repetitions of a trial (an experiment with given command line) in memory and computes the loss
+ * hypertune.py uses: 0.01 * mean of every lossStride-th mean best value + 0.99 * min of mean best values,
+ * over steps < maxSteps. Every thread should use its own runner, as the argument parser is not shared.
+ */
+public class TrialRunner {
+    final public static int LOSS_STRIDE = 50;
+
+    private final ArgumentParser parser = Experiments.createArgumentParser();
+
+    /**
+     * Statistics of best values of all repetitions, each of them stopped after stepsLimit samples.
+     */
+    public ConvergenceStatistics run(String[] arguments, int stepsLimit) throws ArgumentParserException, NotImplementedException {
+        Namespace ns = parser.parseArgs(arguments);
+        Experiments.checkArguments(parser, ns);
+        Algorithms algorithm = ns.get("algorithm");
+
+        AggregatingOptimizationLogger optimizationLogger = new AggregatingOptimizationLogger(null, algorithm.getShortName(), null, 1, new double[]{0.5});
+        optimizationLogger.resetLogger();
+        Experiments.runExperiments(ns, optimizationLogger, ns.getLong("seed"), stepsLimit);
+        optimizationLogger.closeLogger();
+
+        return optimizationLogger.getStatistics();
+    }
+
+    public static double getLoss(ConvergenceStatistics statistics, int maxSteps, int lossStride) {
+        int points = Math.min(statistics.getPoints(), maxSteps);
+        if (points == 0) {
+            return Double.NaN;
+        }
+
+        double meanOfStrided = 0.;
+        double minOfMeans = Double.MAX_VALUE;
+        for (int point = 0; point < points; point++) {
+            if (point % lossStride == 0) {
+                meanOfStrided += statistics.getMean(point);
+            }
+            minOfMeans = Math.min(minOfMeans, statistics.getMean(point));
+        }
+        meanOfStrided /= (points - 1) / lossStride + 1;
+
+        return meanOfStrided * 0.01 + 0.99 * minOfMeans;
+    }
+
+    /**
+     * Answers request of the trial server, see getTrialArguments for its format; "max_steps" and "loss_stride"
+     * adjust the loss.
+     */
+    public JSONObject runTrial(JSONObject request) throws ArgumentParserException, NotImplementedException {
+        long start = System.nanoTime();
+        ConvergenceStatistics statistics = run(getTrialArguments(request), Integer.MAX_VALUE);
+
+        int points = Math.min(statistics.getPoints(), request.optInt("max_steps", Integer.MAX_VALUE));
+
+        JSONObject response = new JSONObject();
+        if (points == 0) {
+            return response.put("status", "fail").put("error", "No samples were evaluated.");
+        }
+
+        double minOfMeans = Double.MAX_VALUE;
+        for (int point = 0; point < points; point++) {
+            minOfMeans = Math.min(minOfMeans, statistics.getMean(point));
+        }
+
+        int last = points - 1;
+        return response.put("status", "ok")
+                .put("loss", getLoss(statistics, points, request.optInt("loss_stride", LOSS_STRIDE)))
+                .put("min_mean", minOfMeans)
+                .put("steps", points)
+                .put("times", statistics.getCount(0))
+                .put("final_mean", statistics.getMean(last))
+                .put("final_std", statistics.getCount(last) > 1 ? statistics.getStandardDeviation(last) : 0.)
+                .put("final_min", statistics.getMin(last))
+                .put("final_median", statistics.getQuantile(last, 0))
+                .put("final_max", statistics.getMax(last))
+                .put("seconds", (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Command line of a trial: either "args" (as given to MLOG) or "algorithm", "function", "evaluations", "times"
+     * and "parameters" (options with their values, e.g. {"--omega": 0.5}).
+     */
+    public static String[] getTrialArguments(JSONObject request) {
+        if (request.has("args")) {
+            JSONArray args = request.getJSONArray("args");
+            String[] arguments = new String[args.length()];
+            for (int i = 0; i < args.length(); i++) {
+                arguments[i] = args.get(i).toString();
+            }
+            return arguments;
+        }
+
+        List<String> arguments = new ArrayList<>();
+        arguments.add(request.getString("algorithm"));
+        arguments.add(request.getString("function"));
+        arguments.add(Integer.toString(request.getInt("evaluations")));
+        arguments.add("--times");
+        arguments.add(Integer.toString(request.optInt("times", 1)));
+
+        JSONObject parameters = request.optJSONObject("parameters");
+        if (parameters != null) {
+            for (String key : parameters.keySet()) {
+                Object value = parameters.get(key);
+                if (value instanceof Boolean) {
+                    if ((Boolean) value) {
+                        arguments.add(key);
+                    }
+                    continue;
+                }
+                // Negative numbers would be taken for options otherwise
+                arguments.add(String.format("%s=%s", key, value));
+            }
+        }
+
+        return arguments.toArray(new String[0]);
+    }
+}
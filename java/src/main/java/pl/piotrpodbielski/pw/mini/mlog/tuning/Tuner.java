@@ -0,0 +1,228 @@
+package pl.piotrpodbielski.pw.mini.mlog.tuning;
+
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+import org.json.JSONObject;
+import pl.piotrpodbielski.pw.mini.mlog.enums.BudgetAllocations;
+import pl.piotrpodbielski.pw.mini.mlog.various.ConvergenceStatistics;
+import pl.piotrpodbielski.pw.mini.mlog.various.NotImplementedException;
+import pl.piotrpodbielski.pw.mini.mlog.various.RandomContext;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Hyperparameter search running trials concurrently in this JVM; the result does not depend on the number of threads.
+ */
+public class Tuner {
+    // Trials suggested at once with FULL budget, fixed so that suggestions do not depend on the number of threads
+    private static final int FULL_BATCH = 8;
+
+    private static class Trial {
+        final int id;
+        final double[] configuration;
+        double loss = Double.NaN;
+        String error;
+
+        Trial(int id, double[] configuration) {
+            this.id = id;
+            this.configuration = configuration;
+        }
+    }
+
+    private final ParameterSpace space;
+    private final SearchStrategy strategy;
+    private final List<String> baseArguments;
+    private final int evaluations;
+    private final BudgetAllocations allocation;
+    private final int eta;
+    private final int minEvaluations;
+    private final int trials;
+    private final int threads;
+    private final long seed;
+    private final PrintStream out;
+
+    private final ThreadLocal<TrialRunner> trialRunners = ThreadLocal.withInitial(TrialRunner::new);
+    private ExecutorService executor;
+    private int suggested;
+    private long evaluatedSteps;
+    private Trial best;
+
+    /**
+     * @param baseArguments MLOG command line without tuned options (algorithm, function, evaluations, times, ...)
+     */
+    public Tuner(ParameterSpace space, SearchStrategy strategy, List<String> baseArguments, int evaluations, BudgetAllocations allocation,
+                 int eta, int minEvaluations, int trials, int threads, long seed, PrintStream out) {
+        if (eta < 2) {
+            throw new Error("Eta has to be at least 2.");
+        }
+        if (minEvaluations < 1 || minEvaluations > evaluations) {
+            throw new Error("Minimal budget has to be between 1 and evaluations.");
+        }
+        if (trials < 1 || threads < 1) {
+            throw new Error("Number of trials and threads have to be positive.");
+        }
+
+        this.space = space;
+        this.strategy = strategy;
+        this.baseArguments = new ArrayList<>(baseArguments);
+        this.evaluations = evaluations;
+        this.allocation = allocation;
+        this.eta = eta;
+        this.minEvaluations = minEvaluations;
+        this.trials = trials;
+        this.threads = threads;
+        this.seed = seed;
+        this.out = out;
+    }
+
+    /**
+     * Runs all trials, printing one JSON line per evaluation, and returns the best configuration given whole budget.
+     */
+    public JSONObject run() {
+        long start = System.nanoTime();
+        RandomContext random = new RandomContext(seed);
+        executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            if (allocation.equals(BudgetAllocations.FULL)) {
+                while (suggested < trials) {
+                    evaluate(suggest(Math.min(FULL_BATCH, trials - suggested), random), evaluations, 0);
+                }
+            }
+            else {
+                // Number of rungs after the first one, so that the first budget is at least minEvaluations
+                int sMax = 0;
+                while ((long) minEvaluations * pow(eta, sMax + 1) <= evaluations) {
+                    sMax++;
+                }
+
+                for (int bracket = 0; suggested < trials; bracket++) {
+                    int s = allocation.equals(BudgetAllocations.HYPERBAND) ? sMax - bracket % (sMax + 1) : sMax;
+                    int n = (int) Math.ceil((double) (sMax + 1) / (s + 1) * pow(eta, s));
+                    runBracket(suggest(Math.min(n, trials - suggested), random), s, bracket);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        JSONObject result = new JSONObject();
+        if (best != null) {
+            List<String> arguments = new ArrayList<>(baseArguments);
+            arguments.addAll(space.getArguments(best.configuration));
+            result.put("best", new JSONObject(space.getValues(best.configuration)))
+                    .put("loss", best.loss)
+                    .put("trial", best.id)
+                    .put("arguments", arguments);
+        }
+        return result.put("trials", suggested)
+                .put("evaluated_steps", evaluatedSteps)
+                .put("seconds", (System.nanoTime() - start) / 1e9);
+    }
+
+    private void runBracket(List<Trial> rung, int s, int bracket) {
+        for (int i = 0; i <= s; i++) {
+            int budget = i == s ? evaluations : (int) Math.max(1, Math.round(evaluations / (double) pow(eta, s - i)));
+            evaluate(rung, budget, bracket);
+
+            if (i == s) {
+                break;
+            }
+
+            List<Trial> ranked = new ArrayList<>(rung);
+            ranked.sort(Comparator.comparingDouble(Tuner::getRankingLoss)); // stable, so ties keep order of suggestions
+            rung = new ArrayList<>(ranked.subList(0, Math.max(1, rung.size() / eta)));
+        }
+    }
+
+    private List<Trial> suggest(int count, RandomContext random) {
+        List<Trial> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            batch.add(new Trial(suggested++, strategy.suggest(random)));
+        }
+        return batch;
+    }
+
+    private void evaluate(List<Trial> batch, int budget, int bracket) {
+        List<Future<ConvergenceStatistics>> runs = new ArrayList<>();
+        for (Trial trial : batch) {
+            String[] arguments = getArguments(trial.configuration);
+            runs.add(executor.submit(() -> trialRunners.get().run(arguments, budget == evaluations ? Integer.MAX_VALUE : budget)));
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            Trial trial = batch.get(i);
+            try {
+                ConvergenceStatistics statistics = runs.get(i).get();
+                trial.loss = TrialRunner.getLoss(statistics, budget, TrialRunner.LOSS_STRIDE);
+                trial.error = null;
+                evaluatedSteps += getSteps(statistics, budget);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (!(cause instanceof ArgumentParserException || cause instanceof NotImplementedException || cause instanceof RuntimeException)) {
+                    throw new RuntimeException("Trial failed.", cause);
+                }
+                trial.loss = Double.NaN;
+                trial.error = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while tuning.", e);
+            }
+
+            strategy.observe(trial.configuration, budget, trial.loss);
+            if (budget == evaluations && !Double.isNaN(trial.loss) && (best == null || trial.loss < best.loss)) {
+                best = new Trial(trial.id, trial.configuration);
+                best.loss = trial.loss;
+            }
+
+            JSONObject line = new JSONObject()
+                    .put("trial", trial.id)
+                    .put("bracket", bracket)
+                    .put("budget", budget)
+                    .put("parameters", new JSONObject(space.getValues(trial.configuration)));
+            if (trial.error != null) {
+                line.put("status", "fail").put("error", trial.error);
+            }
+            else {
+                line.put("status", "ok").put("loss", trial.loss);
+            }
+            out.println(line.toString());
+        }
+        out.flush();
+    }
+
+    /**
+     * Steps taken by all repetitions of a trial, counting at most maxSteps of each.
+     */
+    private static long getSteps(ConvergenceStatistics statistics, int maxSteps) {
+        long steps = 0;
+        for (int point = 0; point < Math.min(statistics.getPoints(), maxSteps); point++) {
+            steps += statistics.getCount(point);
+        }
+        return steps;
+    }
+
+    private String[] getArguments(double[] configuration) {
+        List<String> arguments = new ArrayList<>(baseArguments);
+        arguments.addAll(space.getArguments(configuration));
+        return arguments.toArray(new String[0]);
+    }
+
+    private static double getRankingLoss(Trial trial) {
+        return Double.isNaN(trial.loss) ? Double.MAX_VALUE : trial.loss;
+    }
+
+    private static long pow(int base, int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= base;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,203 @@
+package pl.piotrpodbielski.pw.mini.mlog.various;
+
+import java.util.Arrays;
+
+/**
+ * Streaming statistics of convergence curves (best value so far at consecutive points) of many runs.
+ * Every point keeps count, mean and variance (Welford), min, max and P-square (Jain & Chlamtac) estimates of the requested quantiles,
+ * so memory does not depend on the number of runs. Results depend on the order in which curves are added.
+ */
+public class ConvergenceStatistics {
+    final private static int MARKERS = 5;
+
+    private final double[] quantiles;
+    private int points = 0;
+    private int[] counts = new int[0];
+    private double[] means = new double[0];
+    private double[] squaredDeviations = new double[0];
+    private double[] minimums = new double[0];
+    private double[] maximums = new double[0];
+
+    // P-square markers, MARKERS per quantile per point
+    private double[] heights = new double[0];
+    private int[] positions = new int[0];
+
+    public ConvergenceStatistics(double[] quantiles) {
+        for (double quantile : quantiles) {
+            if (quantile <= 0. || quantile >= 1.) {
+                throw new Error("Quantiles have to be between 0 and 1 (exclusive).");
+            }
+        }
+
+        this.quantiles = quantiles.clone();
+    }
+
+    /**
+     * Adds values of a curve at points [0, length).
+     */
+    public void addCurve(double[] curve, int length) {
+        ensurePoints(length);
+
+        for (int point = 0; point < length; point++) {
+            add(point, curve[point]);
+        }
+    }
+
+    public void add(int point, double value) {
+        ensurePoints(point + 1);
+
+        int count = ++counts[point];
+        double delta = value - means[point];
+        means[point] += delta / count;
+        squaredDeviations[point] += delta * (value - means[point]);
+
+        if (count == 1) {
+            minimums[point] = value;
+            maximums[point] = value;
+        }
+        else {
+            minimums[point] = Math.min(minimums[point], value);
+            maximums[point] = Math.max(maximums[point], value);
+        }
+
+        for (int q = 0; q < quantiles.length; q++) {
+            addToQuantile((point * quantiles.length + q) * MARKERS, quantiles[q], count, value);
+        }
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    public int getCount(int point) {
+        return counts[point];
+    }
+
+    public double getMean(int point) {
+        return means[point];
+    }
+
+    /**
+     * Sample standard deviation, NaN for less than two values.
+     */
+    public double getStandardDeviation(int point) {
+        return counts[point] > 1 ? Math.sqrt(squaredDeviations[point] / (counts[point] - 1)) : Double.NaN;
+    }
+
+    public double getMin(int point) {
+        return minimums[point];
+    }
+
+    public double getMax(int point) {
+        return maximums[point];
+    }
+
+    public double[] getQuantiles() {
+        return quantiles.clone();
+    }
+
+    /**
+     * Estimate of quantile with index q (in the order given to the constructor), exact for up to five values.
+     */
+    public double getQuantile(int point, int q) {
+        int offset = (point * quantiles.length + q) * MARKERS;
+        int count = counts[point];
+
+        if (count >= MARKERS) {
+            return heights[offset + 2];
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+
+        double[] sorted = Arrays.copyOfRange(heights, offset, offset + count);
+        Arrays.sort(sorted);
+
+        double position = quantiles[q] * (count - 1);
+        int lower = (int) Math.floor(position);
+        int upper = Math.min(lower + 1, count - 1);
+        return sorted[lower] + (position - lower) * (sorted[upper] - sorted[lower]);
+    }
+
+    private void addToQuantile(int offset, double p, int count, double value) {
+        // First values are only collected, markers are initialised with the fifth one
+        if (count <= MARKERS) {
+            heights[offset + count - 1] = value;
+
+            if (count == MARKERS) {
+                Arrays.sort(heights, offset, offset + MARKERS);
+                for (int i = 0; i < MARKERS; i++) {
+                    positions[offset + i] = i;
+                }
+            }
+            return;
+        }
+
+        int k;
+        if (value < heights[offset]) {
+            heights[offset] = value;
+            k = 0;
+        }
+        else if (value >= heights[offset + 4]) {
+            heights[offset + 4] = value;
+            k = 3;
+        }
+        else {
+            k = 0;
+            while (value >= heights[offset + k + 1]) {
+                k++;
+            }
+        }
+
+        for (int i = k + 1; i < MARKERS; i++) {
+            positions[offset + i]++;
+        }
+
+        // Desired positions of middle markers after count values: (count-1)p/2, (count-1)p, (count-1)(1+p)/2
+        double last = count - 1;
+
+        for (int i = 1; i < MARKERS - 1; i++) {
+            int n = positions[offset + i];
+            double d = last * (i == 1 ? p / 2. : i == 2 ? p : (1. + p) / 2.) - n;
+
+            if ((d >= 1. && positions[offset + i + 1] - n > 1) || (d <= -1. && positions[offset + i - 1] - n < -1)) {
+                int sign = d > 0 ? 1 : -1;
+                double height = parabolic(offset, i, sign);
+
+                if (heights[offset + i - 1] < height && height < heights[offset + i + 1]) {
+                    heights[offset + i] = height;
+                }
+                else {
+                    heights[offset + i] += sign * (heights[offset + i + sign] - heights[offset + i]) / (positions[offset + i + sign] - n);
+                }
+                positions[offset + i] += sign;
+            }
+        }
+    }
+
+    private double parabolic(int offset, int i, int sign) {
+        double q = heights[offset + i], qPrev = heights[offset + i - 1], qNext = heights[offset + i + 1];
+        double n = positions[offset + i], nPrev = positions[offset + i - 1], nNext = positions[offset + i + 1];
+
+        return q + sign / (nNext - nPrev) * ((n - nPrev + sign) * (qNext - q) / (nNext - n) + (nNext - n - sign) * (q - qPrev) / (n - nPrev));
+    }
+
+    private void ensurePoints(int required) {
+        if (required <= points) {
+            return;
+        }
+
+        if (required > counts.length) {
+            int capacity = Math.max(required, 2 * counts.length);
+            counts = Arrays.copyOf(counts, capacity);
+            means = Arrays.copyOf(means, capacity);
+            squaredDeviations = Arrays.copyOf(squaredDeviations, capacity);
+            minimums = Arrays.copyOf(minimums, capacity);
+            maximums = Arrays.copyOf(maximums, capacity);
+            heights = Arrays.copyOf(heights, capacity * quantiles.length * MARKERS);
+            positions = Arrays.copyOf(positions, capacity * quantiles.length * MARKERS);
+        }
+
+        points = required;
+    }
+}
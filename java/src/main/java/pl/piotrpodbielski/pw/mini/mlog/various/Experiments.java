@@ -0,0 +1,401 @@
+package pl.piotrpodbielski.pw.mini.mlog.various;
+
+import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.impl.Arguments;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+import net.sourceforge.argparse4j.inf.Namespace;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.BiologicalEvolutionAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.BitSwitchHillClimbingAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.BitSwitchHillClimbingVNSAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.DifferentialEvolutionAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.EvolutionStrategyAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.HillClimbingAdSSAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.HillClimbingAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.OptimizationAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.ParticleSwarmOptimizationAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.SimulatedAnnealingAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.islands.IslandModelAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.restarts.RestartingAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.simple.GridSearchAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.simple.MonteCarloAlgorithm;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.topologies.INeighbourhood;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.topologies.KdTreeNeighbourhood;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.topologies.NearestNeighbourhood;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.topologies.RandomNeighbourhood;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.topologies.RingNeighbourhood;
+import pl.piotrpodbielski.pw.mini.mlog.algorithms.topologies.VonNeumannNeighbourhood;
+import pl.piotrpodbielski.pw.mini.mlog.enums.Algorithms;
+import pl.piotrpodbielski.pw.mini.mlog.enums.BackpressurePolicies;
+import pl.piotrpodbielski.pw.mini.mlog.enums.BoundHandlings;
+import pl.piotrpodbielski.pw.mini.mlog.enums.Functions;
+import pl.piotrpodbielski.pw.mini.mlog.enums.LogFormats;
+import pl.piotrpodbielski.pw.mini.mlog.enums.MigrationTopologies;
+import pl.piotrpodbielski.pw.mini.mlog.enums.RestartStrategies;
+import pl.piotrpodbielski.pw.mini.mlog.enums.Samplers;
+import pl.piotrpodbielski.pw.mini.mlog.enums.Topologies;
+import pl.piotrpodbielski.pw.mini.mlog.functions.AckleyFunction;
+import pl.piotrpodbielski.pw.mini.mlog.functions.EllipsoidFunction;
+import pl.piotrpodbielski.pw.mini.mlog.functions.GriewankFunction;
+import pl.piotrpodbielski.pw.mini.mlog.functions.QualityFunction;
+import pl.piotrpodbielski.pw.mini.mlog.functions.RastriginFunction;
+import pl.piotrpodbielski.pw.mini.mlog.functions.RosenbrockFunction;
+import pl.piotrpodbielski.pw.mini.mlog.functions.SchwefelFunction;
+import pl.piotrpodbielski.pw.mini.mlog.functions.SphereFunction;
+import pl.piotrpodbielski.pw.mini.mlog.functions.TransformedFunction;
+import pl.piotrpodbielski.pw.mini.mlog.loggers.IOptimizationLogger;
+import pl.piotrpodbielski.pw.mini.mlog.loggers.IShardedOptimizationLogger;
+import pl.piotrpodbielski.pw.mini.mlog.samplers.SobolSampler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Command line options of an experiment and running its repetitions, shared by Main, the trial server and the tuner.
+ */
+public class Experiments {
+    Experiments() {
+        throw new RuntimeException("Cannot initialize instance of class Experiments.");
+    }
+
+    /**
+     * Runs one repetition, stopping it after stepsLimit samples (Integer.MAX_VALUE to run it whole).
+     */
+    public static void runExperiment(OptimizationAlgorithm algorithm, int iteration, long seed, IOptimizationLogger optimizationLogger, int stepsLimit) throws NotImplementedException {
+        runExperiment(algorithm, iteration, seed, optimizationLogger, stepsLimit, Termination.NONE);
+    }
+
+    /**
+     * Runs one repetition as above, stopping it also by criteria of termination; returns number of evaluations until a
+     * value not worse than its target was found, -1 if it was not.
+     */
+    public static int runExperiment(OptimizationAlgorithm algorithm, int iteration, long seed, IOptimizationLogger optimizationLogger, int stepsLimit, Termination termination) throws NotImplementedException {
+        RunContext runContext = new RunContext(iteration, new RandomContext(seed).fork(iteration), optimizationLogger);
+        runContext.setStepsLimit(stepsLimit);
+        runContext.setTermination(termination);
+        algorithm.setRunContext(runContext);
+
+        try {
+            algorithm.optimize();
+        } catch (RunStoppedException e) {
+            // Samples up to the limit (or termination) have already been logged
+        }
+
+        return runContext.getStepsToTarget();
+    }
+
+    public static int[] runExperimentsInParallel(Namespace ns, IShardedOptimizationLogger optimizationLogger, long seed, int stepsLimit) throws NotImplementedException {
+        int times = ns.getInt("times");
+        Termination termination = getTermination(ns);
+        int[] evaluationsToTarget = new int[times];
+        ExecutorService executor = Executors.newFixedThreadPool(ns.getInt("parallel"));
+
+        try {
+            List<IShardedOptimizationLogger> shards = new ArrayList<>(times);
+            List<Future<?>> experiments = new ArrayList<>(times);
+            for (int i = 0; i < times; i++) {
+                final int iteration = i;
+                final IShardedOptimizationLogger shard = optimizationLogger.createShard(iteration);
+                shards.add(shard);
+
+                experiments.add(executor.submit(() -> {
+                    shard.resetLogger();
+                    evaluationsToTarget[iteration] = runExperiment(getOptimizationAlgorithm(ns), iteration, seed, shard, stepsLimit, termination);
+                    shard.closeLogger();
+                    return null;
+                }));
+            }
+
+            for (Future<?> experiment : experiments) {
+                try {
+                    experiment.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof NotImplementedException) {
+                        throw (NotImplementedException) e.getCause();
+                    }
+                    throw new RuntimeException(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
+
+            optimizationLogger.mergeShards(shards);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return evaluationsToTarget;
+    }
+
+    public static QualityFunction getQualityFunction(Namespace ns) {
+        QualityFunction functionToOptimize = getQualityFunction(ns.get("quality_function"), ns.getInt("dimension"));
+        if (ns.getBoolean("shifted") || ns.getBoolean("rotated")) {
+            functionToOptimize = new TransformedFunction(functionToOptimize, ns.getBoolean("shifted"), ns.getBoolean("rotated"));
+        }
+
+        return functionToOptimize;
+    }
+
+    /**
+     * Value which a run has to reach: optimum of the function plus --target, or minus infinity when it is not given.
+     */
+    public static double getTarget(Namespace ns) {
+        Double precision = ns.getDouble("target");
+        if (precision == null) {
+            return Double.NEGATIVE_INFINITY;
+        }
+
+        return getQualityFunction(ns).getOptimumValue() + precision;
+    }
+
+    /**
+     * When runs stop before using up their evaluations: --stop-at-target, --stagnation-window, --time-limit (seconds)
+     * and --diversity-threshold.
+     */
+    public static Termination getTermination(Namespace ns) {
+        return new Termination(getTarget(ns), ns.getBoolean("stop_at_target"), ns.getInt("stagnation_window"),
+                (long) (ns.getDouble("time_limit") * 1000), ns.getDouble("diversity_threshold"));
+    }
+
+    public static QualityFunction getQualityFunction(Functions qualityFunction, int dimension) {
+        QualityFunction functionToOptimize;
+        if (qualityFunction.equals(Functions.RASTRIGIN)) {
+            functionToOptimize = new RastriginFunction(dimension);
+        }
+        else if (qualityFunction.equals(Functions.ROSENBROCK)) {
+            functionToOptimize = new RosenbrockFunction(dimension);
+        }
+        else if (qualityFunction.equals(Functions.SPHERE)) {
+            functionToOptimize = new SphereFunction(dimension);
+        }
+        else if (qualityFunction.equals(Functions.ACKLEY)) {
+            functionToOptimize = new AckleyFunction(dimension);
+        }
+        else if (qualityFunction.equals(Functions.GRIEWANK)) {
+            functionToOptimize = new GriewankFunction(dimension);
+        }
+        else if (qualityFunction.equals(Functions.SCHWEFEL)) {
+            functionToOptimize = new SchwefelFunction(dimension);
+        }
+        else if (qualityFunction.equals(Functions.ELLIPSOID)) {
+            functionToOptimize = new EllipsoidFunction(dimension);
+        }
+        else {
+            throw new RuntimeException();
+        }
+
+        return functionToOptimize;
+    }
+
+    public static OptimizationAlgorithm getOptimizationAlgorithm(Namespace ns) {
+        OptimizationAlgorithm optimizationAlgorithm = createOptimizationAlgorithm(ns);
+        optimizationAlgorithm.setSampler(ns.get("sampler"));
+        optimizationAlgorithm.setBoundHandling(ns.get("bound_handling"));
+        optimizationAlgorithm.setSynchronousGenerations(ns.getBoolean("synchronous"));
+        optimizationAlgorithm.setEvaluationThreads(ns.getInt("threads"));
+
+        return optimizationAlgorithm;
+    }
+
+    /**
+     * Algorithm of --algorithm, restarted by --restarts unless it is NONE.
+     */
+    private static OptimizationAlgorithm createOptimizationAlgorithm(Namespace ns) {
+        int evaluations = ns.get("evaluations");
+        QualityFunction functionToOptimize = getQualityFunction(ns);
+        RestartStrategies restarts = ns.get("restarts");
+
+        if (restarts.equals(RestartStrategies.NONE)) {
+            return createOptimizationAlgorithm(ns, functionToOptimize, evaluations, 1.);
+        }
+
+        return new RestartingAlgorithm(functionToOptimize, evaluations, restarts,
+                (restartEvaluations, populationFactor) -> createOptimizationAlgorithm(ns, functionToOptimize, restartEvaluations, populationFactor));
+    }
+
+    /**
+     * Algorithm of --algorithm using evaluations samples, whose population (if it has one) is populationFactor times
+     * the given one.
+     */
+    private static OptimizationAlgorithm createOptimizationAlgorithm(Namespace ns, QualityFunction functionToOptimize, int evaluations, double populationFactor) {
+        Algorithms algorithm = ns.get("algorithm");
+        int population = scalePopulation(ns.getInt("population"), populationFactor);
+        int crossoverPopulation = scalePopulation(ns.getInt("crossover_population"), populationFactor);
+        int numberOfParticles = scalePopulation(ns.getInt("number_of_particles"), populationFactor);
+
+        if (algorithm.equals(Algorithms.MONTE_CARLO)) {
+            return new MonteCarloAlgorithm(functionToOptimize, evaluations, ns.getInt("threads"));
+        }
+        else if (algorithm.equals(Algorithms.GRID_SEARCH)) {
+            return new GridSearchAlgorithm(functionToOptimize, evaluations, (int) Math.ceil(Math.pow(evaluations, 1. / functionToOptimize.getDimension())), ns.getInt("threads"));
+        }
+        else if (algorithm.equals(Algorithms.HILL_CLIMBING)) {
+            return new HillClimbingAlgorithm(functionToOptimize, ns.getInt("failures_to_reset"), evaluations, ns.getDouble("step"), ns.getBoolean("reset_resets_failures_counter"));
+        }
+        else if (algorithm.equals(Algorithms.HILL_CLIMBING_AD_SS)) {
+            return new HillClimbingAdSSAlgorithm(functionToOptimize, evaluations, numberOfParticles);
+        }
+        else if (algorithm.equals(Algorithms.BIT_SWITCH_HILL_CLIMBING)) {
+            BitSwitchHillClimbingAlgorithm bitSwitchHillClimbing = new BitSwitchHillClimbingAlgorithm(functionToOptimize, ns.getInt("failures_to_reset"), evaluations, ns.getDouble("step"), ns.getBoolean("reset_resets_failures_counter"), ns.getInt("no_of_bits_for_grid_mapping_per_dim"));
+            bitSwitchHillClimbing.setEvaluationCache(ns.getInt("cache_capacity"), ns.getBoolean("cache_hits_take_steps"));
+            return bitSwitchHillClimbing;
+        }
+        else if (algorithm.equals(Algorithms.SIMULATED_ANNEALING)) {
+            return new SimulatedAnnealingAlgorithm(functionToOptimize, evaluations);
+        }
+        else if (algorithm.equals(Algorithms.BIT_SWITCH_HILL_CLIMBING_VNS)) {
+            BitSwitchHillClimbingVNSAlgorithm bitSwitchHillClimbingVNS = new BitSwitchHillClimbingVNSAlgorithm(functionToOptimize, evaluations, ns.getInt("no_of_bits_for_grid_mapping_per_dim"), ns.getInt("neighbour_looks"));
+            bitSwitchHillClimbingVNS.setEvaluationCache(ns.getInt("cache_capacity"), ns.getBoolean("cache_hits_take_steps"));
+            return bitSwitchHillClimbingVNS;
+        }
+        else if (algorithm.equals(Algorithms.EVOLUTION_STRATEGY)) {
+            return new EvolutionStrategyAlgorithm(functionToOptimize, evaluations, ns.getInt("improvements_loop_iteration"), ns.getDouble("step"), ns.getDouble("step_mutation_coefficient"));
+        }
+        else if (algorithm.equals(Algorithms.BIOLOGICAL_EVOLUTION)) {
+            return getIslandModel(ns, functionToOptimize, evaluations, () -> new BiologicalEvolutionAlgorithm(functionToOptimize, evaluations, population, crossoverPopulation, ns.getDouble("mutation_probability"), ns.getDouble("step")));
+        }
+        else if (algorithm.equals(Algorithms.PARTICLE_SWARM_OPTIMIZATION)) {
+            return new ParticleSwarmOptimizationAlgorithm(functionToOptimize, evaluations, numberOfParticles, ns.getDouble("omega"), ns.getDouble("c_1"), ns.getDouble("c_2"), getNeighbourhood(ns));
+        }
+        else if (algorithm.equals(Algorithms.DIFFERENTIAL_EVOLUTION)) {
+            return getIslandModel(ns, functionToOptimize, evaluations, () -> new DifferentialEvolutionAlgorithm(functionToOptimize, evaluations, population, ns.getDouble("f")));
+        }
+        throw new RuntimeException();
+    }
+
+    private static int scalePopulation(int population, double factor) {
+        return (int) Math.ceil(population * factor);
+    }
+
+    /**
+     * Algorithm built by islandFactory, or --islands of its populations evolving concurrently.
+     */
+    private static OptimizationAlgorithm getIslandModel(Namespace ns, QualityFunction functionToOptimize, int evaluations, Supplier<OptimizationAlgorithm> islandFactory) {
+        if (ns.getInt("islands") == 1) {
+            return islandFactory.get();
+        }
+
+        return new IslandModelAlgorithm(functionToOptimize, evaluations, ns.getInt("islands"), ns.getInt("migration_interval"), ns.getInt("migrants"), ns.get("migration_topology"), islandFactory);
+    }
+
+    public static INeighbourhood getNeighbourhood(Namespace ns) {
+        Topologies topology = ns.get("topology");
+
+        if (topology.equals(Topologies.NEAREST_KD_TREE)) {
+            return new KdTreeNeighbourhood();
+        }
+        else if (topology.equals(Topologies.RING)) {
+            return new RingNeighbourhood();
+        }
+        else if (topology.equals(Topologies.VON_NEUMANN)) {
+            return new VonNeumannNeighbourhood();
+        }
+        else if (topology.equals(Topologies.RANDOM)) {
+            return new RandomNeighbourhood(ns.getInt("informed_particles"));
+        }
+        return new NearestNeighbourhood();
+    }
+
+    public static ArgumentParser createArgumentParser() {
+        ArgumentParser parser = ArgumentParsers.newFor("MLOG").build();
+        parser.addArgument("algorithm").type(Algorithms.class);
+        parser.addArgument("quality-function").type(Functions.class);
+        parser.addArgument("evaluations").type(Integer.class);
+        parser.addArgument("--dimension").type(Integer.class).setDefault(2);
+        parser.addArgument("--shifted").action(Arguments.storeTrue()); // optimum moved to a fixed random point
+        parser.addArgument("--rotated").action(Arguments.storeTrue()); // function composed with a fixed random rotation
+        parser.addArgument("--target").type(Double.class); // report evaluations until a value within this of the optimum
+        parser.addArgument("--stop-at-target").action(Arguments.storeTrue()); // stop runs once they reach --target
+        parser.addArgument("--stagnation-window").type(Integer.class).setDefault(0); // stop (or restart) runs after this many evaluations without improvement, 0 for never
+        parser.addArgument("--time-limit").type(Double.class).setDefault(0.); // seconds of every run, 0 for no limit
+        parser.addArgument("--diversity-threshold").type(Double.class).setDefault(0.); // HC + AdSS, BE, DE, PSO; stop (or restart) runs once the population spread relative to the bounds falls below it
+        parser.addArgument("--restarts").type(RestartStrategies.class).setDefault(RestartStrategies.NONE); // restart runs stopped by stagnation or diversity with the remaining evaluations
+        parser.addArgument("--times").type(Integer.class).setDefault(1);
+        parser.addArgument("--parallel").type(Integer.class).setDefault(1); // number of repetitions run at once
+        parser.addArgument("--seed").type(Long.class).setDefault(1L);
+        parser.addArgument("--log-format").type(LogFormats.class).setDefault(LogFormats.CSV);
+        parser.addArgument("--summary-stride").type(Integer.class).setDefault(1); // SUMMARY log format
+        parser.addArgument("--summary-quantiles").type(Double.class).nargs("*").setDefault(Arrays.asList(0.25, 0.5, 0.75)); // SUMMARY log format
+        parser.addArgument("--log-backpressure").type(BackpressurePolicies.class).setDefault(BackpressurePolicies.BLOCK); // when writing lags behind
+
+        parser.addArgument("--threads").type(Integer.class).setDefault(1); // MC, GS, BE, AdSS / DE / PSO with --synchronous; threads evaluating a single run
+        parser.addArgument("--synchronous").action(Arguments.storeTrue()); // HC + AdSS, DE, PSO; evaluate whole generations at once
+        parser.addArgument("--sampler").type(Samplers.class).setDefault(Samplers.UNIFORM); // MC and initial points of the others
+        parser.addArgument("--bound-handling").type(BoundHandlings.class).setDefault(BoundHandlings.TRUNCATE); // HC, HC + AdSS, ES, SA; keeping mutants within bounds
+
+        parser.addArgument("--number-of-particles").type(Integer.class).setDefault(20); // HC + AdSS, PSO
+
+        parser.addArgument("--step").type(Double.class).setDefault(0.03); // HC, BSHC, ES, BE
+
+        parser.addArgument("--failures-to-reset").type(Integer.class).setDefault(5); // HC, BSHC
+        parser.addArgument("--reset-resets-failures-counter").action(Arguments.storeTrue()); // HC, BSHC
+
+        parser.addArgument("--no-of-bits-for-grid-mapping-per-dim").type(Integer.class).setDefault(1); // BSHC, BSHC + VNS
+
+        parser.addArgument("--neighbour-looks").type(Integer.class).setDefault(10); // BSHC + VNS
+
+        parser.addArgument("--cache-capacity").type(Integer.class).setDefault(0); // BSHC, BSHC + VNS; genomes whose values are remembered, 0 for no cache
+        parser.addArgument("--cache-hits-take-steps").action(Arguments.storeTrue()); // BSHC, BSHC + VNS; count (and log) cache hits as samples
+
+        parser.addArgument("--improvements-loop-iteration").type(Integer.class).setDefault(100); // ES
+        parser.addArgument("--step-mutation-coefficient").type(Double.class).setDefault(0.9); // ES
+
+        parser.addArgument("--population").type(Integer.class).setDefault(10); // BE, DE
+        parser.addArgument("--crossover-population").type(Integer.class).setDefault(5); // BE
+        parser.addArgument("--mutation-probability").type(Double.class).setDefault(0.5); // BE
+
+        parser.addArgument("--omega").type(Double.class).setDefault(0.6); // PSO
+        parser.addArgument("--c-1").type(Double.class).setDefault(1.7); // PSO
+        parser.addArgument("--c-2").type(Double.class).setDefault(1.7); // PSO
+        parser.addArgument("--topology").type(Topologies.class).setDefault(Topologies.NEAREST); // PSO
+        parser.addArgument("--informed-particles").type(Integer.class).setDefault(3); // PSO with RANDOM topology
+
+        parser.addArgument("--f").type(Double.class).setDefault(0.5); // DE
+
+        parser.addArgument("--islands").type(Integer.class).setDefault(1); // BE, DE; populations (of the given size each) evolving on their own threads
+        parser.addArgument("--migration-interval").type(Integer.class).setDefault(10); // BE, DE with islands; generations
+        parser.addArgument("--migrants").type(Integer.class).setDefault(2); // BE, DE with islands
+        parser.addArgument("--migration-topology").type(MigrationTopologies.class).setDefault(MigrationTopologies.RING); // BE, DE with islands
+
+        return parser;
+    }
+
+    /**
+     * Rejects options which parse but cannot be run together, so that a run does not fail after it has started.
+     */
+    public static void checkArguments(ArgumentParser parser, Namespace ns) throws ArgumentParserException {
+        if (ns.get("sampler").equals(Samplers.SOBOL) && ns.getInt("dimension") > SobolSampler.MAX_DIMENSION) {
+            throw new ArgumentParserException(String.format("argument --sampler: SOBOL is available for at most %d dimensions, use HALTON or LATIN_HYPERCUBE", SobolSampler.MAX_DIMENSION), parser);
+        }
+    }
+
+    public static int[] runExperiments(Namespace ns, IShardedOptimizationLogger optimizationLogger, long seed) throws NotImplementedException {
+        return runExperiments(ns, optimizationLogger, seed, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Runs all repetitions (at once, if --parallel is given), each stopped after stepsLimit samples; returns numbers of
+     * evaluations until each of them reached the target (-1 if it did not).
+     */
+    public static int[] runExperiments(Namespace ns, IShardedOptimizationLogger optimizationLogger, long seed, int stepsLimit) throws NotImplementedException {
+        if (ns.getInt("parallel") > 1) {
+            return runExperimentsInParallel(ns, optimizationLogger, seed, stepsLimit);
+        }
+
+        Termination termination = getTermination(ns);
+        int[] evaluationsToTarget = new int[ns.getInt("times")];
+        // Every repetition gets fresh algorithm, as some of them adapt their parameters (e.g. step) while running
+        for (int i = 0; i < evaluationsToTarget.length; i++) {
+            evaluationsToTarget[i] = runExperiment(getOptimizationAlgorithm(ns), i, seed, optimizationLogger, stepsLimit, termination);
+        }
+
+        return evaluationsToTarget;
+    }
+}
@@ -0,0 +1,133 @@
+package pl.piotrpodbielski.pw.mini.mlog.various;
+
+/**
+ * Random number generator owned by a single run (xoshiro256** seeded with SplitMix64).
+ * Not thread-safe; sub-tasks should use their own context obtained with split() or fork().
+ */
+public class RandomContext {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private long s0;
+    private long s1;
+    private long s2;
+    private long s3;
+
+    public RandomContext(long seed) {
+        long z = seed;
+        s0 = mix64(z += GOLDEN_GAMMA);
+        s1 = mix64(z += GOLDEN_GAMMA);
+        s2 = mix64(z += GOLDEN_GAMMA);
+        s3 = mix64(z + GOLDEN_GAMMA);
+    }
+
+    /**
+     * SplitMix64 finalizer, a bijective mix of bits, e.g. for deriving seeds.
+     */
+    public static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public long nextLong() {
+        final long result = Long.rotateLeft(s1 * 5, 7) * 9;
+        final long t = s1 << 17;
+
+        s2 ^= s0;
+        s3 ^= s1;
+        s1 ^= s2;
+        s0 ^= s3;
+        s2 ^= t;
+        s3 = Long.rotateLeft(s3, 45);
+
+        return result;
+    }
+
+    public int nextInt() {
+        return (int) (nextLong() >>> 32);
+    }
+
+    /**
+     * Uniform int from [0, bound), without modulo bias (Lemire's method).
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Bound must be positive.");
+        }
+
+        long m = (nextLong() >>> 32) * bound;
+        long low = m & 0xFFFFFFFFL;
+        if (low < bound) {
+            long threshold = (0x100000000L - bound) % bound;
+            while (low < threshold) {
+                m = (nextLong() >>> 32) * bound;
+                low = m & 0xFFFFFFFFL;
+            }
+        }
+
+        return (int) (m >>> 32);
+    }
+
+    /**
+     * Uniform double from [0, 1).
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * Standard normal double (ziggurat method).
+     */
+    public double nextGaussian() {
+        return Ziggurat.next(this);
+    }
+
+    public void fillUniform(double[] out, double rangeMin, double rangeMax) {
+        for (int i = 0; i < out.length; ++i) {
+            out[i] = rangeMin + (rangeMax - rangeMin) * nextDouble();
+        }
+    }
+
+    /**
+     * Fills out[i] with uniform double from [rangeMin[i], rangeMax[i]).
+     */
+    public void fillUniform(double[] out, double[] rangeMin, double[] rangeMax) {
+        for (int i = 0; i < out.length; ++i) {
+            out[i] = rangeMin[i] + (rangeMax[i] - rangeMin[i]) * nextDouble();
+        }
+    }
+
+    /**
+     * Fills out with normal(mean, stdDev^2) values.
+     */
+    public void fillGaussian(double[] out, double mean, double stdDev) {
+        for (int i = 0; i < out.length; ++i) {
+            out[i] = mean + stdDev * Ziggurat.next(this);
+        }
+    }
+
+    /**
+     * Fills out[i] with normal(mean[i], stdDev^2) value, e.g. to mutate every coordinate of mean.
+     */
+    public void fillGaussian(double[] out, double[] mean, double stdDev) {
+        for (int i = 0; i < out.length; ++i) {
+            out[i] = mean[i] + stdDev * Ziggurat.next(this);
+        }
+    }
+
+    /**
+     * Returns new context seeded from this one; advances this context.
+     */
+    public RandomContext split() {
+        return new RandomContext(nextLong() ^ mix64(nextLong()));
+    }
+
+    /**
+     * Returns context of sub-stream number streamIndex. Does not advance this context, so the same index always
+     * yields the same stream regardless of the order in which sub-tasks are created.
+     */
+    public RandomContext fork(long streamIndex) {
+        return new RandomContext(mix64(s0 ^ mix64(s1 + GOLDEN_GAMMA * (streamIndex + 1)) ^ Long.rotateLeft(s2, 21) ^ Long.rotateLeft(s3, 42)));
+    }
+}
@@ -0,0 +1,318 @@
+package pl.piotrpodbielski.pw.mini.mlog.various;
+
+import pl.piotrpodbielski.pw.mini.mlog.enums.TerminationReasons;
+import pl.piotrpodbielski.pw.mini.mlog.functions.QualityFunction;
+import pl.piotrpodbielski.pw.mini.mlog.loggers.IOptimizationLogger;
+import pl.piotrpodbielski.pw.mini.mlog.loggers.SampleBuffer;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * State of a single optimization run: step counter, best sample found so far, random generator and logger.
+ * Every run gets its own context, so any number of runs may execute concurrently in one JVM.
+ */
+public class RunContext {
+    private static final int SAMPLES_BUFFER = 1024;
+    // Every this many incremental evaluations one is done whole, so that rounding errors do not pile up
+    private static final int FULL_EVALUATION_INTERVAL = 64;
+    // Every this many samples recorded one by one the clock is read for the time limit
+    private static final int TIME_CHECK_INTERVAL = 256;
+
+    private final int iteration;
+    private final RandomContext random;
+    private final IOptimizationLogger logger;
+    private final boolean recordingSamples;
+    private SampleBuffer samples;
+    private int step = 0;
+    private double bestValue = Double.MAX_VALUE;
+    private double[] bestX;
+    private int bestStep = -1;
+    private int stepsLimit = Integer.MAX_VALUE;
+    private AtomicInteger sharedBudget;
+    private int incrementalEvaluations = 0;
+    private double target = Double.NEGATIVE_INFINITY;
+    private int stepsToTarget = -1;
+    private Termination termination = Termination.NONE;
+    private long deadline; // System.nanoTime() at which the run stops, meaningful only with a time limit
+    private double restartBestValue = Double.MAX_VALUE; // best value since the last restart, for stagnation
+    private int lastImprovementStep = 0;
+    private TerminationReasons stopReason;
+
+    public RunContext(int iteration, RandomContext random, IOptimizationLogger logger) {
+        this.iteration = iteration;
+        this.random = random;
+        this.logger = logger;
+        this.recordingSamples = logger.isRecordingSamples();
+    }
+
+    public double evaluate(QualityFunction function, double[] x) {
+        double value = function.getValue(x);
+        record(x, value);
+
+        return value;
+    }
+
+    /**
+     * Evaluates x which differs from previous, of value previousValue, only at coordinates changed[0..count) (ascending,
+     * without repetitions). The value is updated incrementally when function supports it and at most a quarter of
+     * coordinates changed, except for every FULL_EVALUATION_INTERVAL-th such update.
+     */
+    public double evaluate(QualityFunction function, double[] previous, double previousValue, double[] x, int[] changed, int count) {
+        if (!decideIncremental(function, x.length, count)) {
+            return evaluate(function, x);
+        }
+
+        double value = function.getValue(previous, previousValue, x, changed, count);
+        record(x, value);
+
+        return value;
+    }
+
+    /**
+     * Decides whether the next point of dimension, differing from the previous one at count coordinates, is evaluated
+     * incrementally (as above), counting the decision; evaluations made elsewhere (e.g. by worker threads) follow it.
+     */
+    public boolean decideIncremental(QualityFunction function, int dimension, int count) {
+        return function.isIncremental() && 4 * count <= dimension && ++incrementalEvaluations % FULL_EVALUATION_INTERVAL != 0;
+    }
+
+    /**
+     * Evaluates rows [from, to) of population in one batch, storing value of population[i] in values[i].
+     */
+    public void evaluate(QualityFunction function, double[][] population, int from, int to, double[] values) {
+        function.getValues(population, from, to, values);
+        record(population, from, to, values);
+    }
+
+    /**
+     * Records rows [from, to) of population evaluated elsewhere (e.g. by worker threads), values[i] being value of
+     * population[i].
+     */
+    public void record(double[][] population, int from, int to, double[] values) {
+        for (int i = from; i < to; ++i) {
+            record(population[i], values[i]);
+        }
+    }
+
+    /**
+     * Records next sample of the run for x whose value has already been computed.
+     */
+    public void record(double[] x, double value) {
+        if (stopReason != null) {
+            throw new RunStoppedException(step, stopReason);
+        }
+        if (sharedBudget != null && sharedBudget.getAndDecrement() <= 0) {
+            stop(TerminationReasons.STEPS_LIMIT);
+        }
+
+        if (value < bestValue) {
+            bestValue = value;
+            bestStep = step;
+            if (bestX == null) {
+                bestX = new double[x.length];
+            }
+            System.arraycopy(x, 0, bestX, 0, x.length);
+            if (stepsToTarget < 0 && value <= target) {
+                stepsToTarget = step + 1;
+            }
+        }
+        if (value < restartBestValue) {
+            restartBestValue = value;
+            lastImprovementStep = step;
+        }
+
+        if (recordingSamples) {
+            if (samples == null) {
+                samples = new SampleBuffer(SAMPLES_BUFFER, x.length);
+            }
+
+            samples.append(iteration, step, value, bestValue, x);
+            if (samples.isFull()) {
+                logger.logSamples(samples);
+                samples.clear();
+            }
+        }
+
+        step++;
+
+        checkTermination(step % TIME_CHECK_INTERVAL == 0);
+    }
+
+    /**
+     * Records count samples evaluated elsewhere (e.g. by worker threads) at once, possible only when logger does not
+     * record samples: the best of them is x with value, evaluated as offset-th of them.
+     */
+    public void recordEvaluated(int count, double[] x, double value, int offset) {
+        if (recordingSamples) {
+            throw new Error("Samples have to be recorded one by one when logger records them.");
+        }
+
+        if (stopReason != null) {
+            throw new RunStoppedException(step, stopReason);
+        }
+
+        if (value < bestValue) {
+            bestValue = value;
+            bestStep = step + offset;
+            if (bestX == null) {
+                bestX = new double[x.length];
+            }
+            System.arraycopy(x, 0, bestX, 0, x.length);
+            if (stepsToTarget < 0 && value <= target) {
+                stepsToTarget = step + offset + 1;
+            }
+        }
+        if (value < restartBestValue) {
+            restartBestValue = value;
+            lastImprovementStep = step + offset;
+        }
+
+        step += count;
+
+        checkTermination(true);
+    }
+
+    /**
+     * Stops the run when it has recorded stepsLimit samples or meets a criterion of its termination; the clock is read
+     * only when checkTime.
+     */
+    private void checkTermination(boolean checkTime) {
+        if (step >= stepsLimit) {
+            stop(TerminationReasons.STEPS_LIMIT);
+        }
+        if (termination.isStopAtTarget() && stepsToTarget >= 0) {
+            stop(TerminationReasons.TARGET);
+        }
+        if (termination.getStagnationWindow() > 0 && step - lastImprovementStep >= termination.getStagnationWindow()) {
+            stop(TerminationReasons.STAGNATION);
+        }
+        if (checkTime && termination.getTimeLimitMillis() > 0 && System.nanoTime() - deadline >= 0) {
+            stop(TerminationReasons.TIME_LIMIT);
+        }
+    }
+
+    /**
+     * Stops the run for reason by throwing RunStoppedException after samples are flushed. Samples recorded later stop
+     * it again, until a restart (see beginRestart()) clears a reason which allows it.
+     */
+    public void stop(TerminationReasons reason) {
+        stopReason = reason;
+        flushSamples();
+        throw new RunStoppedException(step, reason);
+    }
+
+    /**
+     * Starts measuring stagnation anew, for the next restart of the run, and lets it go on if it stopped for a
+     * restartable reason.
+     */
+    public void beginRestart() {
+        restartBestValue = Double.MAX_VALUE;
+        lastImprovementStep = step;
+        if (stopReason != null && stopReason.isRestartable()) {
+            stopReason = null;
+        }
+    }
+
+    /**
+     * Reason for which the run stopped, null while it goes on.
+     */
+    public TerminationReasons getStopReason() {
+        return stopReason;
+    }
+
+    /**
+     * Stops the run (by throwing RunStoppedException after samples are flushed) once stepsLimit samples are recorded,
+     * e.g. to judge a configuration by a prefix of its run.
+     */
+    public void setStepsLimit(int stepsLimit) {
+        this.stepsLimit = stepsLimit;
+    }
+
+    /**
+     * Stops the run (as the steps limit does) once samples of all runs sharing the budget exhaust it. A sample evaluated
+     * after that is not recorded.
+     */
+    public void setSharedBudget(AtomicInteger sharedBudget) {
+        this.sharedBudget = sharedBudget;
+    }
+
+    /**
+     * Remembers after how many samples a value not worse than target was first recorded.
+     */
+    public void setTarget(double target) {
+        this.target = target;
+    }
+
+    /**
+     * Stops the run also by criteria of termination (its target is remembered as by setTarget()); the time limit is
+     * counted from now.
+     */
+    public void setTermination(Termination termination) {
+        this.termination = termination;
+        this.target = termination.getTarget();
+        this.deadline = System.nanoTime() + termination.getTimeLimitMillis() * 1000000L;
+    }
+
+    public Termination getTermination() {
+        return termination;
+    }
+
+    /**
+     * Number of samples recorded until (and including) the first one reaching the target, -1 if none did.
+     */
+    public int getStepsToTarget() {
+        return stepsToTarget;
+    }
+
+    /**
+     * Passes recorded samples to logger and flushes it; called by algorithms at the end of a run.
+     */
+    public void flushSamples() {
+        if (samples != null && !samples.isEmpty()) {
+            logger.logSamples(samples);
+            samples.clear();
+        }
+
+        logger.flushSamples();
+    }
+
+    public ValuedSample getBestSample() {
+        if (bestX == null) {
+            return null;
+        }
+
+        return new ValuedSample(Arrays.copyOf(bestX, bestX.length), bestValue, iteration, bestStep, bestValue);
+    }
+
+    public int getIteration() {
+        return iteration;
+    }
+
+    public RandomContext getRandom() {
+        return random;
+    }
+
+    public IOptimizationLogger getLogger() {
+        return logger;
+    }
+
+    public int getStep() {
+        return step;
+    }
+
+    /**
+     * Number of samples which can be recorded before the run is stopped.
+     */
+    public int getRemainingSteps() {
+        return stepsLimit - step;
+    }
+
+    public boolean isRecordingSamples() {
+        return recordingSamples;
+    }
+
+    public double getBestValue() {
+        return bestValue;
+    }
+}
@@ -0,0 +1,31 @@
+package pl.piotrpodbielski.pw.mini.mlog.various;
+
+import pl.piotrpodbielski.pw.mini.mlog.enums.TerminationReasons;
+
+/**
+ * Thrown out of an algorithm when its run reached the steps limit of its RunContext or met a termination criterion.
+ */
+public class RunStoppedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int step;
+    private final TerminationReasons reason;
+
+    public RunStoppedException(int step) {
+        this(step, TerminationReasons.STEPS_LIMIT);
+    }
+
+    public RunStoppedException(int step, TerminationReasons reason) {
+        super(String.format("Run stopped after %d steps (%s).", step, reason));
+        this.step = step;
+        this.reason = reason;
+    }
+
+    public int getStep() {
+        return step;
+    }
+
+    public TerminationReasons getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,47 @@
+package pl.piotrpodbielski.pw.mini.mlog.various;
+
+/**
+ * When a run stops before its budget is used up: at the target, after stagnation, after the time limit or when the
+ * population collapses. Zero turns a criterion off.
+ */
+public class Termination {
+    public static final Termination NONE = new Termination(Double.NEGATIVE_INFINITY, false, 0, 0, 0.);
+
+    private final double target;
+    private final boolean stopAtTarget;
+    private final int stagnationWindow;
+    private final long timeLimitMillis;
+    private final double diversityThreshold;
+
+    public Termination(double target, boolean stopAtTarget, int stagnationWindow, long timeLimitMillis, double diversityThreshold) {
+        if (stagnationWindow < 0 || timeLimitMillis < 0 || diversityThreshold < 0) {
+            throw new Error("Stagnation window, time limit and diversity threshold cannot be negative.");
+        }
+
+        this.target = target;
+        this.stopAtTarget = stopAtTarget;
+        this.stagnationWindow = stagnationWindow;
+        this.timeLimitMillis = timeLimitMillis;
+        this.diversityThreshold = diversityThreshold;
+    }
+
+    public double getTarget() {
+        return target;
+    }
+
+    public boolean isStopAtTarget() {
+        return stopAtTarget;
+    }
+
+    public int getStagnationWindow() {
+        return stagnationWindow;
+    }
+
+    public long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+
+    public double getDiversityThreshold() {
+        return diversityThreshold;
+    }
+}
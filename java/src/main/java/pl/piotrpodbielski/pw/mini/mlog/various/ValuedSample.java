@@ -1,40 +1,19 @@
 package pl.piotrpodbielski.pw.mini.mlog.various;
 
-import pl.piotrpodbielski.pw.mini.mlog.functions.QualityFunction;
-
-import java.util.Arrays;
-
 public class ValuedSample {
+    private final double[] x;
+    private final double value;
     private final int iteration;
-    double[] x;
-    int step;
-    double value;
-    double bestValue;
+    private final int step;
+    private final double bestValue;
     private int idx = 0;
-    private static int lastIteration = -1;
-    private static int lastStep;
-    private static double globalBestValue;
-
-    public ValuedSample(double[] x, QualityFunction function, int iteration) {
-        this.x = Arrays.copyOf(x, x.length);
-        this.value = function.getValue(x);
 
-        if (lastIteration != iteration) {
-            lastStep = 0;
-            globalBestValue = Double.MAX_VALUE;
-            lastIteration = iteration;
-        }
-        if (this.value < globalBestValue) {
-            globalBestValue = this.value;
-        }
-        this.step = lastStep++;
-        this.bestValue = globalBestValue;
+    public ValuedSample(double[] x, double value, int iteration, int step, double bestValue) {
+        this.x = x;
+        this.value = value;
         this.iteration = iteration;
-    }
-
-    public ValuedSample(double[] x, QualityFunction function, int iteration, int idx) {
-        this(x, function, iteration);
-        this.idx = idx;
+        this.step = step;
+        this.bestValue = bestValue;
     }
 
     public int getStep() {
@@ -0,0 +1,70 @@
+package pl.piotrpodbielski.pw.mini.mlog.various;
+
+/**
+ * Standard normal values by the ziggurat method (Marsaglia and Tsang, with Doornik's improvement); most values cost one
+ * random long and one multiplication.
+ */
+final class Ziggurat {
+    private static final int LAYERS = 128;
+    private static final double R = 3.442619855899; // start of the tail
+    private static final double V = 9.91256303526217e-3; // area of every layer
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private static final double[] x = new double[LAYERS + 1]; // right edges of layers, x[0] being that of the base
+    private static final double[] ratio = new double[LAYERS]; // x[i + 1] / x[i], width of the core of layer i
+
+    static {
+        double f = Math.exp(-0.5 * R * R);
+        x[0] = V / f;
+        x[1] = R;
+        x[LAYERS] = 0.;
+        for (int i = 2; i < LAYERS; i++) {
+            x[i] = Math.sqrt(-2. * Math.log(V / x[i - 1] + f));
+            f = Math.exp(-0.5 * x[i] * x[i]);
+        }
+        for (int i = 0; i < LAYERS; i++) {
+            ratio[i] = x[i + 1] / x[i];
+        }
+    }
+
+    Ziggurat() {
+        throw new RuntimeException("Cannot initialize instance of class Ziggurat.");
+    }
+
+    static double next(RandomContext random) {
+        while (true) {
+            long bits = random.nextLong();
+            int layer = (int) bits & (LAYERS - 1);
+            double u = 2. * ((bits >>> 11) * DOUBLE_UNIT) - 1.;
+
+            if (Math.abs(u) < ratio[layer]) {
+                return u * x[layer];
+            }
+            if (layer == 0) {
+                return tail(random, u < 0);
+            }
+
+            // Wedge between the core and the density
+            double value = u * x[layer];
+            double f0 = Math.exp(-0.5 * (x[layer] * x[layer] - value * value));
+            double f1 = Math.exp(-0.5 * (x[layer + 1] * x[layer + 1] - value * value));
+            if (f1 + random.nextDouble() * (f0 - f1) < 1.) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Value beyond R (Marsaglia's method), negated if negative.
+     */
+    private static double tail(RandomContext random, boolean negative) {
+        double value;
+        double y;
+        do {
+            value = Math.log(1. - random.nextDouble()) / R;
+            y = Math.log(1. - random.nextDouble());
+        } while (-2. * y < value * value);
+
+        return negative ? value - R : R - value;
+    }
+}
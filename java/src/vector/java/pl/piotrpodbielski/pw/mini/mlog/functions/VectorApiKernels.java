@@ -0,0 +1,127 @@
+package pl.piotrpodbielski.pw.mini.mlog.functions;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Kernels on vectors of the widest shape of the CPU (e.g. 4 doubles with AVX2, 8 with AVX-512); coordinates which do
+ * not fill a whole vector are done by scalar code. Loaded by VectorKernels through reflection only.
+ */
+final class VectorApiKernels implements IVectorKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public int lanes() {
+        return SPECIES.length();
+    }
+
+    @Override
+    public double sumOfSquares(double[] x, int offset, int length) {
+        DoubleVector sum = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, x, offset + i);
+            sum = v.fma(v, sum);
+        }
+
+        double result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; ++i) {
+            result += x[offset + i] * x[offset + i];
+        }
+        return result;
+    }
+
+    @Override
+    public double weightedSumOfSquares(double[] x, int offset, double[] weights) {
+        int length = weights.length;
+        DoubleVector sum = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, x, offset + i);
+            DoubleVector w = DoubleVector.fromArray(SPECIES, weights, i);
+            sum = v.mul(w).fma(v, sum);
+        }
+
+        double result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; ++i) {
+            result += weights[i] * x[offset + i] * x[offset + i];
+        }
+        return result;
+    }
+
+    @Override
+    public double sumOfCosines(double[] x, int offset, int length, double frequency) {
+        DoubleVector sum = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, x, offset + i);
+            sum = sum.add(v.mul(frequency).lanewise(VectorOperators.COS));
+        }
+
+        double result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; ++i) {
+            result += Math.cos(frequency * x[offset + i]);
+        }
+        return result;
+    }
+
+    @Override
+    public double productOfCosines(double[] x, int offset, double[] scales) {
+        int length = scales.length;
+        DoubleVector product = DoubleVector.broadcast(SPECIES, 1.);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, x, offset + i);
+            DoubleVector s = DoubleVector.fromArray(SPECIES, scales, i);
+            product = product.mul(v.mul(s).lanewise(VectorOperators.COS));
+        }
+
+        double result = product.reduceLanes(VectorOperators.MUL);
+        for (; i < length; ++i) {
+            result *= Math.cos(x[offset + i] * scales[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public double rosenbrock(double[] x, int offset, int length) {
+        int terms = length - 1;
+        DoubleVector sum = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(terms); i < bound; i += SPECIES.length()) {
+            DoubleVector a = DoubleVector.fromArray(SPECIES, x, offset + i);
+            DoubleVector b = DoubleVector.fromArray(SPECIES, x, offset + i + 1);
+            DoubleVector t = b.sub(a.mul(a));
+            DoubleVector u = a.neg().add(1.);
+            sum = t.mul(100.).fma(t, u.fma(u, sum));
+        }
+
+        double result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < terms; ++i) {
+            double a = x[offset + i];
+            double t = x[offset + i + 1] - a * a;
+            result += 100 * t * t + (1 - a) * (1 - a);
+        }
+        return result;
+    }
+
+    @Override
+    public double schwefel(double[] x, int offset, int length) {
+        DoubleVector sum = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, x, offset + i);
+            DoubleVector clamped = v.max(-500.).min(500.);
+            DoubleVector excess = v.abs().sub(500.).max(0.);
+            DoubleVector term = clamped.mul(clamped.abs().sqrt().lanewise(VectorOperators.SIN));
+            sum = sum.add(excess.neg().fma(excess, term));
+        }
+
+        double result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; ++i) {
+            result += SchwefelFunction.term(x[offset + i]);
+        }
+        return result;
+    }
+}
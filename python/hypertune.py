@@ -1,3 +1,4 @@
+import json
 import math
 import os
 import random
@@ -12,7 +13,8 @@ from plot_comparison import get_pd_from_path
 
 
 def get_subprocess_arguments(algorithm, function, times, hp_args):
-    arguments = ['java', '-jar', '../java/build/libs/java.jar', algorithm.name, function.name, str(STEPS[function]), '--times', str(times), ]
+    arguments = ['java', '-jar', '../java/build/libs/java.jar', algorithm.name, function.name, str(STEPS[function]), '--times', str(times),
+                 '--log-format', 'SUMMARY', ]
 
     for key, value in hp_args.items():
         if '--reset-resets-failures-counter' in key:
@@ -35,7 +37,18 @@ def calculate_args_sum(args):
     return sum([value if type(value) == float else 0. for value in args.values()])
 
 
-def find_best_params(algorithm, function, times, max_evaluations, fixed_arguments=None):
+def start_trial_server():
+    return subprocess.Popen(['java', '-jar', '../java/build/libs/java.jar', 'serve'], stdin=subprocess.PIPE, stdout=subprocess.PIPE, text=True)
+
+
+def run_server_trial(server, arguments, function):
+    server.stdin.write(json.dumps({'args': arguments, 'max_steps': STEPS[function], 'loss_stride': 50}) + '\n')
+    server.stdin.flush()
+
+    return json.loads(server.stdout.readline())
+
+
+def find_best_params(algorithm, function, times, max_evaluations, fixed_arguments=None, server=None):
     if fixed_arguments is None:
         fixed_arguments = {}
 
@@ -48,6 +61,17 @@ def find_best_params(algorithm, function, times, max_evaluations, fixed_argument
 
     def objective(args):
         arguments = get_subprocess_arguments(algorithm, function, times, args)
+
+        if server:
+            # Resident JVM computes the same loss in memory, trial is identified by its command line
+            response = run_server_trial(server, arguments[3:], function)
+            if response['status'] != 'ok':
+                return {'status': STATUS_FAIL}
+            return {'loss': response['loss'],
+                    'status': STATUS_OK,
+                    'filename': ' '.join(arguments[3:]),
+                    'args_sum': calculate_args_sum(args)}
+
         proc = subprocess.Popen(arguments, stdout=subprocess.PIPE)
         try:
             proc_out, proc_err = proc.communicate(timeout=15)
@@ -90,7 +114,7 @@ def find_best_params(algorithm, function, times, max_evaluations, fixed_argument
             continue
 
         filename = result['filename']
-        if filename != best_trial_filename:
+        if not server and filename != best_trial_filename:
             os.unlink(filename)
             os.unlink(filename.replace('.csv', '.json'))
 
@@ -106,10 +130,17 @@ def main():
     parser.add_argument("function", type=Functions.argparse, choices=list(Functions))
     parser.add_argument("--times", type=int, default=500)
     parser.add_argument("--max-evaluations", type=int, default=350)
+    parser.add_argument("--server", action='store_true', help="run trials in one resident JVM without writing logs")
 
     args = parser.parse_args()
 
-    find_best_params(args.algorithm, args.function, args.times, args.max_evaluations)
+    server = start_trial_server() if args.server else None
+    try:
+        find_best_params(args.algorithm, args.function, args.times, args.max_evaluations, server=server)
+    finally:
+        if server:
+            server.stdin.close()
+            server.wait()
 
     print("--- %s seconds ---" % (time.time() - start_time))
 
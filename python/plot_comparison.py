@@ -25,13 +25,21 @@ def get_pd_from_path(path, max_steps, compare_same=False, function_name=None):
     if max_steps:
         df = df[df['Step'] < max_steps]
     df = df.rename(columns={'Name': 'Algorithm'})
-    df = df.astype({'Iteration': 'int32', 'Step': 'int32', 'Best value': 'float32'})
 
-    iteration_count = df['Iteration'].unique().shape[0]
-    step_count = int(df['Step'].max())
+    if path.endswith('-summary.csv'):
+        # Already aggregated by the Java logger (--log-format SUMMARY)
+        iteration_count = int(df['Count'].max())
+        step_count = int(df['Step'].max())
 
-    # df = df.groupby(['Algorithm', 'Step'])['Best value'].agg(['min', 'mean', 'max']).reset_index()
-    df = df.groupby(['Algorithm', 'Step'])['Best value'].agg(['mean', 'std']).reset_index()
+        df = df.rename(columns={'Mean': 'mean', 'Std': 'std'})[['Algorithm', 'Step', 'mean', 'std']]
+    else:
+        df = df.astype({'Iteration': 'int32', 'Step': 'int32', 'Best value': 'float32'})
+
+        iteration_count = df['Iteration'].unique().shape[0]
+        step_count = int(df['Step'].max())
+
+        # df = df.groupby(['Algorithm', 'Step'])['Best value'].agg(['min', 'mean', 'max']).reset_index()
+        df = df.groupby(['Algorithm', 'Step'])['Best value'].agg(['mean', 'std']).reset_index()
     df['min'] = df['mean'] - df['std']
     df['min'] = df['min'].where(df['min'] > 0, 0)
     df['max'] = df['mean'] + df['std']
@@ -64,7 +72,7 @@ def plot(args):
     if not len(path_list):
         raise RuntimeError
 
-    res = re.match(r'.*[a-z]+\-([a-z]+)\-[0-9]{4}\-[0-9]{6}\-log\.csv', path_list[0])
+    res = re.match(r'.*[a-z]+\-([a-z]+)\-[0-9]{4}\-[0-9]{6}\-(log|summary)\.csv', path_list[0])
     if not res:
         print("Wrong file name provided")
         return